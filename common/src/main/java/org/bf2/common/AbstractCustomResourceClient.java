@@ -99,4 +99,12 @@ public abstract class AbstractCustomResourceClient<T extends CustomResource<?, ?
         return OperandUtils.createOrUpdate(resourceClient, resource);
     }
 
+    /**
+     * @param current the cached resource, may be null
+     * @see OperandUtils#createOrUpdate(MixedOperation, io.fabric8.kubernetes.api.model.HasMetadata, io.fabric8.kubernetes.api.model.HasMetadata)
+     */
+    public T createOrUpdate(T resource, T current) {
+        return OperandUtils.createOrUpdate(resourceClient, resource, current);
+    }
+
 }
@@ -0,0 +1,119 @@
+package org.bf2.common;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the watch activity and event handling of a single informer.  The meters are tagged by kind,
+ * so informers of the same type share them.
+ */
+class InformerMetrics {
+
+    private final Class<?> type;
+    private final LongSupplier nanoTime;
+    private final Map<Action, Counter> events = new EnumMap<>(Action.class);
+    private final Counter reconnects;
+    private final Timer addTimer;
+    private final Timer updateTimer;
+    private final Timer deleteTimer;
+    private final AtomicInteger watches = new AtomicInteger();
+    private volatile long lastActivity;
+    private volatile boolean watchObserved;
+
+    InformerMetrics(Class<?> type, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.type = type;
+        this.nanoTime = nanoTime;
+        this.lastActivity = nanoTime.getAsLong();
+        String kind = type.getSimpleName();
+        for (Action action : Action.values()) {
+            events.put(action, Counter.builder(ResourceInformerFactory.INFORMER_EVENTS)
+                    .tag("kind", kind)
+                    .tag("action", action.name().toLowerCase(Locale.ROOT))
+                    .description("The number of watch events received by informers")
+                    .register(meterRegistry));
+        }
+        this.reconnects = Counter.builder(ResourceInformerFactory.INFORMER_WATCH_RECONNECTS)
+                .tag("kind", kind)
+                .description("The number of times informers have had to relist and restart their watch")
+                .register(meterRegistry);
+        this.addTimer = handlerTimer(meterRegistry, kind, "add");
+        this.updateTimer = handlerTimer(meterRegistry, kind, "update");
+        this.deleteTimer = handlerTimer(meterRegistry, kind, "delete");
+    }
+
+    private static Timer handlerTimer(MeterRegistry meterRegistry, String kind, String action) {
+        return Timer.builder(ResourceInformerFactory.INFORMER_HANDLER)
+                .tag("kind", kind)
+                .tag("action", action)
+                .description("The time taken by informer event handlers")
+                .register(meterRegistry);
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Called each time the informer starts a watch, the first is the initial watch and the rest follow
+     * a relist.  Reconnects made by the watch itself resume from the last resource version and are not seen here.
+     */
+    void watchStarted() {
+        watchObserved = true;
+        lastActivity = nanoTime.getAsLong();
+        if (watches.getAndIncrement() > 0) {
+            reconnects.increment();
+        }
+    }
+
+    void eventReceived(Action action) {
+        lastActivity = nanoTime.getAsLong();
+        events.get(action).increment();
+    }
+
+    /**
+     * @return the time since the watch was last started or received an event
+     */
+    Duration timeSinceLastEvent() {
+        return Duration.ofNanos(nanoTime.getAsLong() - lastActivity);
+    }
+
+    /**
+     * A watch is stale when it has been silent for longer than the timeout.  Informers whose watch is not
+     * observable, such as those created from a mock, are never considered stale.
+     */
+    boolean isStale(Duration timeout) {
+        return watchObserved && timeSinceLastEvent().compareTo(timeout) > 0;
+    }
+
+    <T extends HasMetadata> ResourceEventHandler<T> timed(ResourceEventHandler<T> handler) {
+        return new ResourceEventHandler<T>() {
+
+            @Override
+            public void onAdd(T obj) {
+                addTimer.record(() -> handler.onAdd(obj));
+            }
+
+            @Override
+            public void onUpdate(T oldObj, T newObj) {
+                updateTimer.record(() -> handler.onUpdate(oldObj, newObj));
+            }
+
+            @Override
+            public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+                deleteTimer.record(() -> handler.onDelete(obj, deletedFinalStateUnknown));
+            }
+        };
+    }
+
+}
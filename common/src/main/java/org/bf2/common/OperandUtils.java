@@ -1,5 +1,8 @@
 package org.bf2.common;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.fabric8.kubernetes.api.model.Affinity;
 import io.fabric8.kubernetes.api.model.AffinityBuilder;
 import io.fabric8.kubernetes.api.model.HasMetadata;
@@ -18,17 +21,29 @@ import io.fabric8.kubernetes.api.model.TolerationBuilder;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.Metrics;
 import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.logging.Logger;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class OperandUtils {
 
+    private static final Logger log = Logger.getLogger(OperandUtils.class);
+
     public static final String K8S_NAME_LABEL = "app.kubernetes.io/name";
     public static final String MANAGED_BY_LABEL = "app.kubernetes.io/managed-by";
     public static final String COMPONENT_LABEL = "app.kubernetes.io/component";
@@ -45,6 +60,74 @@ public class OperandUtils {
     public static final String INGRESS_TYPE = "ingressType";
     public static final String SHARDED = "sharded";
 
+    public static final String WRITE_MODE_PROPERTY = "operand.write-mode";
+    public static final String FIELD_MANAGER = "kas-fleetshard";
+
+    /**
+     * Metadata that is set by the server, which is left alone rather than removed when absent from the desired resource.
+     * The resourceVersion is never sent so that patches are not rejected because of concurrent changes, such as Strimzi
+     * writing to a Kafka.
+     */
+    private static final Set<String> SERVER_METADATA = Set.of("uid", "resourceVersion", "creationTimestamp", "generation",
+            "managedFields", "selfLink", "deletionTimestamp", "deletionGracePeriodSeconds");
+
+    private static final String POD_TEMPLATE = "/spec/template/spec";
+
+    /**
+     * The paths, per kind, that the server or the controller of a resource fills in with a default when they are not set.
+     * They are ignored by {@link #isSemanticallyEqual(HasMetadata, HasMetadata)} when only present in the current resource.
+     * Array items are matched with *, and map keys, such as annotations, are used as is.
+     */
+    static final Map<String, Set<String>> DEFAULTED_PATHS = Map.of(
+            "Deployment", deploymentDefaults(),
+            "Service", Set.of("/spec/type", "/spec/clusterIP", "/spec/clusterIPs", "/spec/ipFamilies", "/spec/ipFamilyPolicy",
+                    "/spec/sessionAffinity", "/spec/internalTrafficPolicy", "/spec/ports/*/protocol", "/spec/ports/*/targetPort"),
+            "Route", Set.of("/spec/wildcardPolicy", "/spec/to/weight"));
+
+    private static Set<String> deploymentDefaults() {
+        Set<String> paths = new HashSet<>(Set.of("/metadata/annotations/deployment.kubernetes.io/revision",
+                "/spec/progressDeadlineSeconds", "/spec/revisionHistoryLimit", "/spec/strategy"));
+        for (String field : List.of("dnsPolicy", "restartPolicy", "schedulerName", "terminationGracePeriodSeconds",
+                "serviceAccount", "enableServiceLinks", "volumes/*/configMap/defaultMode", "volumes/*/secret/defaultMode")) {
+            paths.add(POD_TEMPLATE + "/" + field);
+        }
+        for (String containers : List.of("containers", "initContainers")) {
+            String container = POD_TEMPLATE + "/" + containers + "/*/";
+            for (String field : List.of("terminationMessagePath", "terminationMessagePolicy", "imagePullPolicy",
+                    "ports/*/protocol", "env/*/valueFrom/fieldRef/apiVersion")) {
+                paths.add(container + field);
+            }
+            for (String probe : List.of("livenessProbe", "readinessProbe", "startupProbe")) {
+                for (String field : List.of("timeoutSeconds", "periodSeconds", "successThreshold", "failureThreshold", "httpGet/scheme")) {
+                    paths.add(container + probe + "/" + field);
+                }
+            }
+        }
+        return Set.copyOf(paths);
+    }
+
+    public static final String OPERAND_WRITES = "operand.writes";
+
+    public enum WriteMode {
+        /**
+         * a resourceVersion locked replace of the full resource
+         */
+        REPLACE,
+        /**
+         * a JSON merge patch of only the fields that differ from the current resource
+         */
+        MERGE_PATCH;
+
+        static WriteMode fromConfig() {
+            return ConfigProvider.getConfig()
+                    .getOptionalValue(WRITE_MODE_PROPERTY, String.class)
+                    .map(v -> WriteMode.valueOf(v.trim().toUpperCase().replace('-', '_')))
+                    .orElse(REPLACE);
+        }
+    }
+
+    private static volatile WriteMode writeMode;
+
     /**
      * Set the provided resource as owner of the resource
      *
@@ -84,6 +167,7 @@ public class OperandUtils {
      * need preserved.  An edit should be used instead.
      */
     public static <T extends HasMetadata> T createOrUpdate(MixedOperation<T, ?, ?> resources, T resource) {
+        countWrite(resource, "performed");
         Resource<T> withName = resources
                 .inNamespace(resource.getMetadata().getNamespace())
                 .withName(resource.getMetadata().getName());
@@ -102,6 +186,216 @@ public class OperandUtils {
         return withName.createOrReplace(resource);
     }
 
+    /**
+     * Create or update the resource using the configured {@link WriteMode}, which is set with the
+     * {@value #WRITE_MODE_PROPERTY} property and defaults to a replace.
+     *
+     * @param current the cached state of the resource, may be null
+     * @see #createOrUpdate(MixedOperation, HasMetadata, HasMetadata, WriteMode)
+     */
+    public static <T extends HasMetadata> T createOrUpdate(MixedOperation<T, ?, ?> resources, T resource, T current) {
+        WriteMode mode = writeMode;
+        if (mode == null) {
+            mode = WriteMode.fromConfig();
+            writeMode = mode;
+        }
+        return createOrUpdate(resources, resource, current, mode);
+    }
+
+    /**
+     * When there is a current resource that is {@link #isSemanticallyEqual(HasMetadata, HasMetadata)} to the desired
+     * resource nothing is written.
+     * <br>
+     * Otherwise a {@link WriteMode#MERGE_PATCH} sends only the fields that differ from it,
+     * or nothing at all if there is no difference.  Fields of the current resource that are absent from the desired
+     * resource are removed, as they would be by a replace, except for the server populated metadata and the status.
+     * <br>
+     * The current resource is expected to be from an informer cache, so it may be stale.  That is not a problem for
+     * correctness as the patch is not resourceVersion locked, the desired fields are always sent if they differ from what was seen.
+     * If the patch cannot be applied, such as when the resource has since been deleted, this falls back to
+     * {@link #createOrUpdate(MixedOperation, HasMetadata)}.
+     */
+    public static <T extends HasMetadata> T createOrUpdate(MixedOperation<T, ?, ?> resources, T resource, T current, WriteMode mode) {
+        if (current != null && isSemanticallyEqual(resource, current)) {
+            countWrite(resource, "elided");
+            return current;
+        }
+        if (mode == WriteMode.REPLACE || current == null) {
+            return createOrUpdate(resources, resource);
+        }
+        return patch(resources, resource, current, mergePatch(Serialization.jsonMapper().valueToTree(current),
+                Serialization.jsonMapper().valueToTree(resource)));
+    }
+
+    /**
+     * Apply the merge patch, an empty patch is not sent.  A patch that cannot be applied falls back to
+     * {@link #createOrUpdate(MixedOperation, HasMetadata)}, which counts its own write.
+     */
+    /* test */ static <T extends HasMetadata> T patch(MixedOperation<T, ?, ?> resources, T resource, T current, ObjectNode patch) {
+        if (patch.isEmpty()) {
+            countWrite(resource, "elided");
+            return current;
+        }
+        try {
+            T result = resources.inNamespace(resource.getMetadata().getNamespace())
+                    .withName(resource.getMetadata().getName())
+                    .patch(new PatchContext.Builder().withPatchType(PatchType.JSON_MERGE).withFieldManager(FIELD_MANAGER).build(),
+                            patch.toString());
+            countWrite(resource, "performed");
+            return result;
+        } catch (KubernetesClientException e) {
+            log.debugf(e, "Could not patch %s %s/%s, it will be replaced", resource.getKind(),
+                    resource.getMetadata().getNamespace(), resource.getMetadata().getName());
+        }
+        return createOrUpdate(resources, resource);
+    }
+
+    /**
+     * The writes are counted in the global registry, as this is not a bean
+     */
+    private static void countWrite(HasMetadata resource, String result) {
+        Metrics.counter(OPERAND_WRITES, "kind", String.valueOf(resource.getKind()), "result", result).increment();
+    }
+
+    /**
+     * Compare the desired resource with the current, typically cached, resource, and return true if writing the
+     * desired resource would not change anything.  The comparison ignores:
+     * <ul>
+     * <li>the status and the metadata generated by the server
+     * <li>the {@link #DEFAULTED_PATHS} of the kind and empty values that are only present in the current resource
+     * <li>the order of map entries, and of lists of named items, such as containers and environment variables
+     * <li>the representation of numbers
+     * </ul>
+     * Labels and annotations must match exactly, so removing one is a change.
+     */
+    public static boolean isSemanticallyEqual(HasMetadata desired, HasMetadata current) {
+        JsonNode desiredNode = Serialization.jsonMapper().valueToTree(desired);
+        JsonNode currentNode = Serialization.jsonMapper().valueToTree(current);
+        for (JsonNode node : List.of(desiredNode, currentNode)) {
+            ((ObjectNode) node).remove("status");
+            JsonNode metadata = node.get("metadata");
+            if (metadata instanceof ObjectNode) {
+                ((ObjectNode) metadata).remove(SERVER_METADATA);
+            }
+        }
+        return semanticallyEqual(desiredNode, currentNode, "", DEFAULTED_PATHS.getOrDefault(desired.getKind(), Set.of()));
+    }
+
+    static boolean semanticallyEqual(JsonNode desired, JsonNode current, String path, Set<String> defaulted) {
+        if (isEmpty(current)) {
+            return isEmpty(desired);
+        }
+        if (desired.isNumber() && current.isNumber()) {
+            return desired.decimalValue().compareTo(current.decimalValue()) == 0;
+        }
+        // an absent object is compared field by field, as it may only be missing defaulted fields
+        if (current.isObject() && (desired.isObject() || isEmpty(desired))) {
+            Set<String> names = new HashSet<>();
+            desired.fieldNames().forEachRemaining(names::add);
+            current.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                String fieldPath = path + "/" + name;
+                JsonNode desiredField = desired.path(name);
+                if (isEmpty(desiredField) && defaulted.contains(fieldPath)) {
+                    continue;
+                }
+                if (!semanticallyEqual(desiredField, current.path(name), fieldPath, defaulted)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (isEmpty(desired)) {
+            return false;
+        }
+        if (desired.isArray() && current.isArray()) {
+            if (desired.size() != current.size()) {
+                return false;
+            }
+            String itemPath = path + "/*";
+            Map<String, JsonNode> desiredByName = byName(desired);
+            Map<String, JsonNode> currentByName = byName(current);
+            if (desiredByName != null && currentByName != null) {
+                return desiredByName.keySet().equals(currentByName.keySet())
+                        && desiredByName.entrySet().stream()
+                                .allMatch(e -> semanticallyEqual(e.getValue(), currentByName.get(e.getKey()), itemPath, defaulted));
+            }
+            for (int i = 0; i < desired.size(); i++) {
+                if (!semanticallyEqual(desired.get(i), current.get(i), itemPath, defaulted)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return desired.equals(current);
+    }
+
+    private static boolean isEmpty(JsonNode node) {
+        return node.isMissingNode() || node.isNull() || (node.isContainerNode() && node.isEmpty());
+    }
+
+    /**
+     * @return the items keyed by their name, or null if they are not all uniquely named
+     */
+    private static Map<String, JsonNode> byName(JsonNode array) {
+        Map<String, JsonNode> result = new HashMap<>();
+        for (JsonNode item : array) {
+            JsonNode name = item.path("name");
+            if (!name.isTextual() || result.put(name.asText(), item) != null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute the JSON merge patch (RFC 7386) that transforms the current resource into the desired resource
+     */
+    static ObjectNode mergePatch(JsonNode current, JsonNode desired) {
+        ObjectNode patch = diff(current, desired);
+        patch.remove("status");
+        JsonNode metadata = patch.get("metadata");
+        if (metadata instanceof ObjectNode) {
+            ObjectNode metadataPatch = (ObjectNode) metadata;
+            for (String field : SERVER_METADATA) {
+                metadataPatch.remove(field);
+            }
+            if (metadataPatch.isEmpty()) {
+                patch.remove("metadata");
+            }
+        }
+        return patch;
+    }
+
+    private static ObjectNode diff(JsonNode current, JsonNode desired) {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = desired.fields(); fields.hasNext();) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode currentValue = current.get(field.getKey());
+            JsonNode desiredValue = field.getValue();
+            if (desiredValue.isNull()) {
+                if (currentValue != null && !currentValue.isNull()) {
+                    patch.putNull(field.getKey());
+                }
+            } else if (desiredValue.isObject() && currentValue != null && currentValue.isObject()) {
+                ObjectNode nested = diff(currentValue, desiredValue);
+                if (!nested.isEmpty()) {
+                    patch.set(field.getKey(), nested);
+                }
+            } else if (!desiredValue.equals(currentValue)) {
+                // arrays and scalars are replaced as a whole
+                patch.set(field.getKey(), desiredValue);
+            }
+        }
+        for (Iterator<String> names = current.fieldNames(); names.hasNext();) {
+            String name = names.next();
+            if (!desired.has(name) && !current.get(name).isNull()) {
+                patch.putNull(name);
+            }
+        }
+        return patch;
+    }
+
     public static List<Toleration> profileTolerations(ManagedKafka managedKafka, ManagedKafkaAgent agent, boolean dynamicScalingScheduling) {
         String type =
                 OperandUtils.getOrDefault(managedKafka.getMetadata().getLabels(), ManagedKafka.PROFILE_TYPE, null);
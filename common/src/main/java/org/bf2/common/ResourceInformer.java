@@ -5,14 +5,25 @@ import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
 import io.fabric8.kubernetes.client.informers.cache.Cache;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class ResourceInformer<T extends HasMetadata> {
 
     private SharedIndexInformer<T> informer;
+    private CompletableFuture<Void> synced;
+    private InformerMetrics metrics;
 
     public ResourceInformer(SharedIndexInformer<T> informer) {
-       this.informer = informer;
+       this(informer, CompletableFuture.completedFuture(null), null);
+    }
+
+    ResourceInformer(SharedIndexInformer<T> informer, CompletableFuture<Void> synced, InformerMetrics metrics) {
+        this.informer = informer;
+        this.synced = synced;
+        this.metrics = metrics;
     }
 
     public T getByKey(String metaNamespaceKey) {
@@ -27,8 +38,47 @@ public class ResourceInformer<T extends HasMetadata> {
         return informer.getIndexer().byIndex(Cache.NAMESPACE_INDEX, namesapce);
     }
 
+    /**
+     * Get the resources with the given key in a named index registered when the informer was created.
+     * Unlike {@link #getList()} only the matching resources are copied.
+     */
+    public List<T> getByIndex(String indexName, String indexKey) {
+        return informer.getIndexer().byIndex(indexName, indexKey);
+    }
+
+    /**
+     * Create an index function that maps a resource to the {@link Cache#namespaceKeyFunc(String, String)}
+     * of its namespace and the value of the given label
+     */
+    public static <T extends HasMetadata> Function<T, List<String>> labelIndex(String label) {
+        return resource -> {
+            String value = OperandUtils.getOrDefault(resource.getMetadata().getLabels(), label, null);
+            if (value == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(Cache.namespaceKeyFunc(resource.getMetadata().getNamespace(), value));
+        };
+    }
+
+    /**
+     * The handler is added once the informer has synced, so that it sees the full state of the cache.
+     * Its execution time is recorded with the handlers passed to {@link ResourceInformerFactory}.
+     */
     public void addEventHandler(ResourceEventHandler<T> handler) {
-        informer.addEventHandler(handler);
+        ResourceEventHandler<T> added = metrics == null ? handler : metrics.timed(handler);
+        synced.thenRun(() -> informer.addEventHandler(added));
+    }
+
+    /**
+     * @return a future that completes when the initial state has been cached, or exceptionally
+     * if the informer could not be started
+     */
+    public CompletableFuture<Void> synced() {
+        return synced.copy();
+    }
+
+    public boolean isSynced() {
+        return synced.isDone() && !synced.isCompletedExceptionally();
     }
 
     public boolean isWatching() {
@@ -1,37 +1,292 @@
 package org.bf2.common;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.client.dsl.Informable;
+import io.fabric8.kubernetes.client.informers.ListerWatcher;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.impl.DefaultSharedIndexInformer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class ResourceInformerFactory {
 
+    public static final String INFORMER_CACHE_SIZE = "informer.cache.size";
+    public static final String INFORMER_CACHE_ESTIMATED_BYTES = "informer.cache.estimated.bytes";
+    public static final String INFORMER_INITIAL_LIST = "informer.initial.list";
+    public static final String INFORMER_EVENTS = "informer.events";
+    public static final String INFORMER_WATCH_RECONNECTS = "informer.watch.reconnects";
+    public static final String INFORMER_LAST_EVENT_AGE = "informer.last.event.age";
+    public static final String INFORMER_HANDLER = "informer.handler";
+    static final String LAST_APPLIED_CONFIGURATION = "kubectl.kubernetes.io/last-applied-configuration";
+    static final int ESTIMATE_SAMPLE_SIZE = 16;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * When set, a watch that has neither been restarted nor received an event for longer than this is
+     * reported as not watching.  Bookmarks are requested, but the API server makes no guarantee about how often
+     * they are sent, so a quiet resource type can look like a stale watch.  This should be well above the
+     * expected interval between events.
+     */
+    @ConfigProperty(name = "informer.watch.stale-timeout")
+    Optional<Duration> staleWatchTimeout = Optional.empty();
+
+    private static final Logger log = Logger.getLogger(ResourceInformerFactory.class);
+
     private ConcurrentLinkedQueue<SharedIndexInformer<?>> startedInformers = new ConcurrentLinkedQueue<>();
+    private ConcurrentLinkedQueue<CompletableFuture<Void>> informerSyncs = new ConcurrentLinkedQueue<>();
+    private ConcurrentLinkedQueue<InformerMetrics> informerMetrics = new ConcurrentLinkedQueue<>();
+    private volatile boolean informerStartFailed;
+
+    // informers are started concurrently, each start blocks for the initial list
+    private final ExecutorService startExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "informer-start");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public <T extends HasMetadata> ResourceInformer<T> create(Class<T> type,
             Informable<T> informable,
             ResourceEventHandler<? super T> eventHandler) {
-        SharedIndexInformer<T> informer = informable.inform();
+        return create(type, informable, eventHandler, Collections.emptyMap());
+    }
+
+    /**
+     * Create and start an informer with additional named indexes, which may be queried with
+     * {@link ResourceInformer#getByIndex(String, String)}.  The namespace index is always present.
+     */
+    public <T extends HasMetadata> ResourceInformer<T> create(Class<T> type,
+            Informable<T> informable,
+            ResourceEventHandler<? super T> eventHandler,
+            Map<String, Function<T, List<String>>> indexers) {
+        return create(type, informable, eventHandler, indexers, UnaryOperator.identity());
+    }
+
+    /**
+     * Create and start an informer that applies the transform to each resource before it enters the cache.
+     * This is in addition to {@link #trimMetadata(HasMetadata)}, which is applied to all informers, and
+     * should be used to remove fields that are never read from the cache.
+     * <br>
+     * Resources given to the event handlers are the transformed instances.
+     * <br>
+     * The informer is started asynchronously, so that the initial lists of all informers happen concurrently.
+     * The cache will be empty or incomplete until {@link ResourceInformer#synced()} completes.
+     */
+    public <T extends HasMetadata> ResourceInformer<T> create(Class<T> type,
+            Informable<T> informable,
+            ResourceEventHandler<? super T> eventHandler,
+            Map<String, Function<T, List<String>>> indexers,
+            UnaryOperator<T> transform) {
+        InformerMetrics metrics = new InformerMetrics(type, meterRegistry == null ? new SimpleMeterRegistry() : meterRegistry, System::nanoTime);
+        SharedIndexInformer<T> informer;
+        if (informable instanceof ListerWatcher) {
+            // the equivalent of inform(), but with the list and watch results transformed
+            @SuppressWarnings("unchecked")
+            ListerWatcher<T, KubernetesResourceList<T>> listerWatcher = (ListerWatcher<T, KubernetesResourceList<T>>) informable;
+            DefaultSharedIndexInformer<T, KubernetesResourceList<T>> defaultInformer = new DefaultSharedIndexInformer<>(type,
+                    new TransformingListerWatcher<>(listerWatcher, r -> transform.apply(trimMetadata(r)), metrics), 0, Runnable::run);
+            if (!indexers.isEmpty()) {
+                // indexers can only be added before the informer is started
+                defaultInformer.addIndexers(indexers);
+            }
+            informer = defaultInformer;
+        } else {
+            if (!indexers.isEmpty()) {
+                informable = informable.withIndexers(indexers);
+            }
+            informer = informable.runnableInformer(0);
+        }
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        informerSyncs.add(synced);
+        startExecutor.execute(() -> start(type, informer, eventHandler, synced, metrics));
+        registerMetrics(type);
+        informerMetrics.add(metrics);
+        return new ResourceInformer<>(informer, synced, metrics);
+    }
+
+    private <T extends HasMetadata> void start(Class<T> type, SharedIndexInformer<T> informer,
+            ResourceEventHandler<? super T> eventHandler, CompletableFuture<Void> synced, InformerMetrics metrics) {
+        long start = System.nanoTime();
+        try {
+            // blocks until the initial list has been cached and the watch started
+            informer.run();
+        } catch (RuntimeException e) {
+            log.errorf(e, "Could not start the %s informer", type.getSimpleName());
+            informerStartFailed = true;
+            synced.completeExceptionally(e);
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        log.debugf("Started the %s informer in %d ms", type.getSimpleName(), TimeUnit.NANOSECONDS.toMillis(duration));
+        if (meterRegistry != null) {
+            Timer.builder(INFORMER_INITIAL_LIST)
+                    .tag("kind", type.getSimpleName())
+                    .description("The time taken to list and cache the initial state of an informer")
+                    .register(meterRegistry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+        }
         // https://github.com/fabric8io/kubernetes-client/issues/4082 add the handler after it's started so that we see the full state of the cache
         if (eventHandler != null) {
-            informer.addEventHandler((ResourceEventHandler) eventHandler);
+            informer.addEventHandler(metrics.timed((ResourceEventHandler) eventHandler));
         }
         startedInformers.add(informer);
-        return new ResourceInformer<>(informer);
+        synced.complete(null);
+    }
+
+    /**
+     * Remove the metadata that is never read from cached resources - the managed fields and the
+     * last applied configuration, which is a full copy of the resource.
+     */
+    public static <T extends HasMetadata> T trimMetadata(T resource) {
+        ObjectMeta metadata = resource.getMetadata();
+        if (metadata != null) {
+            metadata.setManagedFields(null);
+            if (metadata.getAnnotations() != null) {
+                metadata.getAnnotations().remove(LAST_APPLIED_CONFIGURATION);
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * A transform for informers where only the metadata is read, for use with
+     * {@link #create(Class, Informable, ResourceEventHandler, Map, UnaryOperator)}.
+     * <br>
+     * fabric8 does not support PartialObjectMetadata list and watch requests, so the full resources are still
+     * received, but only a new instance holding the metadata is cached.
+     *
+     * @param constructor creates an empty instance of the resource type, e.g. {@code Namespace::new}
+     */
+    public static <T extends HasMetadata> UnaryOperator<T> metadataOnly(Supplier<T> constructor) {
+        return resource -> {
+            T result = constructor.get();
+            result.setMetadata(resource.getMetadata());
+            return result;
+        };
+    }
+
+    /**
+     * The gauges are registered once per resource type and are summed over all informers of that type
+     */
+    private void registerMetrics(Class<?> type) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Tags tags = Tags.of("kind", type.getSimpleName());
+        meterRegistry.gauge(INFORMER_CACHE_SIZE, tags, this, f -> f.informersOf(type)
+                .mapToLong(i -> i.getStore().list().size())
+                .sum());
+        meterRegistry.gauge(INFORMER_CACHE_ESTIMATED_BYTES, tags, this, f -> f.informersOf(type)
+                .mapToLong(i -> estimateBytes(i.getStore().list()))
+                .sum());
+        Gauge.builder(INFORMER_LAST_EVENT_AGE, this, f -> f.informerMetrics.stream()
+                .filter(m -> m.getType() == type)
+                .mapToDouble(m -> m.timeSinceLastEvent().toMillis() / 1000.0)
+                .max()
+                .orElse(0))
+                .tags(tags)
+                .baseUnit("seconds")
+                .description("The longest time any informer of this kind has gone without its watch receiving an event")
+                .register(meterRegistry);
+    }
+
+    private Stream<SharedIndexInformer<?>> informersOf(Class<?> type) {
+        return startedInformers.stream().filter(i -> i.getApiTypeClass() == type);
+    }
+
+    /**
+     * Estimate the serialized size of the resources from an evenly spaced sample, rather than serializing
+     * everything on each scrape.  The in-memory size is proportional, but larger.
+     */
+    static long estimateBytes(List<?> resources) {
+        int size = resources.size();
+        if (size == 0) {
+            return 0;
+        }
+        int step = Math.max(1, size / ESTIMATE_SAMPLE_SIZE);
+        long sampledBytes = 0;
+        int sampled = 0;
+        for (int i = 0; i < size; i += step) {
+            try {
+                sampledBytes += Serialization.jsonMapper().writeValueAsBytes(resources.get(i)).length;
+            } catch (JsonProcessingException e) {
+                continue;
+            }
+            sampled++;
+        }
+        return sampled == 0 ? 0 : sampledBytes * size / sampled;
     }
 
     /**
      * Return true if all informers are watching.  Will be false only after something
-     * has abnormally failed with the watch.
+     * has abnormally failed with the watch, an informer could not be started, or
+     * a watch has been silent for longer than the stale timeout.
      */
     public boolean allInformersWatching() {
-        return startedInformers.stream().allMatch(SharedIndexInformer::isWatching);
+        return !informerStartFailed && startedInformers.stream().allMatch(SharedIndexInformer::isWatching)
+                && staleInformers().isEmpty();
+    }
+
+    /**
+     * @return the kinds of the informers whose watch has been silent for longer than the stale timeout,
+     * which is always empty when no timeout is configured
+     */
+    public List<String> staleInformers() {
+        if (staleWatchTimeout == null || staleWatchTimeout.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Duration timeout = staleWatchTimeout.get();
+        return informerMetrics.stream()
+                .filter(m -> m.isStale(timeout))
+                .map(m -> m.getType().getSimpleName())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Return true if all informers created so far have cached their initial state.
+     * Until then lookups may not reflect what exists on the cluster.
+     */
+    public boolean allInformersSynced() {
+        return informerSyncs.stream().allMatch(s -> s.isDone() && !s.isCompletedExceptionally());
+    }
+
+    /**
+     * @return a future that completes when all informers created so far have cached their initial state
+     */
+    public CompletableFuture<Void> allSynced() {
+        return CompletableFuture.allOf(informerSyncs.toArray(new CompletableFuture[0]));
     }
 
 }
@@ -0,0 +1,76 @@
+package org.bf2.common;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.informers.ListerWatcher;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Applies a transform to every listed or watched resource before it is handed to the informer,
+ * and thus before it enters the informer cache.  The watch activity is recorded in the {@link InformerMetrics}.
+ */
+class TransformingListerWatcher<T extends HasMetadata, L extends KubernetesResourceList<T>> implements ListerWatcher<T, L> {
+
+    private final ListerWatcher<T, L> delegate;
+    private final UnaryOperator<T> transform;
+    private final InformerMetrics metrics;
+
+    TransformingListerWatcher(ListerWatcher<T, L> delegate, UnaryOperator<T> transform, InformerMetrics metrics) {
+        this.delegate = delegate;
+        this.transform = transform;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Watch watch(ListOptions params, Watcher<T> watcher) {
+        metrics.watchStarted();
+        return delegate.watch(params, new Watcher<T>() {
+
+            @Override
+            public void eventReceived(Action action, T resource) {
+                metrics.eventReceived(action);
+                watcher.eventReceived(action, resource == null ? null : transform.apply(resource));
+            }
+
+            @Override
+            public boolean reconnecting() {
+                return watcher.reconnecting();
+            }
+
+            @Override
+            public void onClose() {
+                watcher.onClose();
+            }
+
+            @Override
+            public void onClose(WatcherException cause) {
+                watcher.onClose(cause);
+            }
+        });
+    }
+
+    @Override
+    public L list(ListOptions params) {
+        L list = delegate.list(params);
+        if (list.getItems() != null) {
+            list.getItems().replaceAll(transform);
+        }
+        return list;
+    }
+
+    @Override
+    public Long getLimit() {
+        return delegate.getLimit();
+    }
+
+    @Override
+    public String getNamespace() {
+        return delegate.getNamespace();
+    }
+
+}
@@ -8,6 +8,8 @@ import org.eclipse.microprofile.health.Liveness;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import java.util.List;
+
 @Liveness
 @ApplicationScoped
 public class LivenessHealthCheck implements HealthCheck {
@@ -20,6 +22,13 @@ public class LivenessHealthCheck implements HealthCheck {
         if (this.resourceInformerFactory.allInformersWatching()) {
             return HealthCheckResponse.up("Informers are watching");
         }
+        List<String> stale = this.resourceInformerFactory.staleInformers();
+        if (!stale.isEmpty()) {
+            return HealthCheckResponse.named("Informers are not watching")
+                    .down()
+                    .withData("stale", String.join(",", stale))
+                    .build();
+        }
         return HealthCheckResponse.down("Informers are not watching");
     }
 }
@@ -0,0 +1,39 @@
+package org.bf2.common;
+
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the requests made to a mock server while an action, such as a reconcile, runs
+ * so that tests can assert on the number of API calls and the bytes sent
+ */
+class ApiTraffic {
+
+    final List<String> requests = new ArrayList<>();
+    long bytes;
+
+    static ApiTraffic measure(KubernetesServer server, Runnable action) throws InterruptedException {
+        drain(server, new ApiTraffic());
+        action.run();
+        return drain(server, new ApiTraffic());
+    }
+
+    private static ApiTraffic drain(KubernetesServer server, ApiTraffic traffic) throws InterruptedException {
+        RecordedRequest request;
+        while ((request = server.getKubernetesMockServer().takeRequest(10, TimeUnit.MILLISECONDS)) != null) {
+            traffic.requests.add(request.getMethod());
+            traffic.bytes += request.getBodySize();
+        }
+        return traffic;
+    }
+
+    @Override
+    public String toString() {
+        return requests + " sending " + bytes + " bytes";
+    }
+
+}
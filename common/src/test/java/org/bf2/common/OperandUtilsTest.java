@@ -1,17 +1,273 @@
 package org.bf2.common;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import io.fabric8.kubernetes.api.model.ContainerBuilder;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
+import io.fabric8.kubernetes.api.model.IntOrString;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bf2.common.OperandUtils.WriteMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class OperandUtilsTest {
 
+    KubernetesServer server = new KubernetesServer(false, true);
+    KubernetesClient client;
+
+    @BeforeEach
+    void before() {
+        server.before();
+        client = server.getClient();
+    }
+
+    @AfterEach
+    void after() {
+        server.after();
+    }
+
+    private static Deployment deployment() {
+        return new DeploymentBuilder()
+                .withNewMetadata()
+                    .withNamespace("test")
+                    .withName("deployment")
+                    .withLabels(Map.of("app", "test"))
+                .endMetadata()
+                .withNewSpec()
+                    .withReplicas(1)
+                    .withNewTemplate()
+                        .withNewSpec()
+                            .addNewContainer()
+                                .withName("container")
+                                .withImage("image")
+                                .withArgs(IntStream.range(0, 50).mapToObj(i -> "--argument-" + i).collect(Collectors.toList()))
+                            .endContainer()
+                        .endSpec()
+                    .endTemplate()
+                .endSpec()
+                .build();
+    }
+
     @Test public void testGetOrDefault() {
         assertEquals("1", OperandUtils.getOrDefault(null, "key", "1"));
         assertEquals("1", OperandUtils.getOrDefault(Map.of(), "key", "1"));
         assertEquals("value", OperandUtils.getOrDefault(Map.of("key", "value"), "key", "1"));
     }
 
+    @Test public void testMergePatch() throws Exception {
+        JsonNode current = Serialization.jsonMapper().readTree("{\"metadata\":{\"name\":\"a\",\"uid\":\"1\",\"resourceVersion\":\"2\","
+                + "\"labels\":{\"a\":\"1\",\"b\":\"2\"}},\"spec\":{\"replicas\":1,\"args\":[\"x\",\"y\"],\"defaulted\":true},\"status\":{\"ready\":true}}");
+        JsonNode desired = Serialization.jsonMapper().readTree("{\"metadata\":{\"name\":\"a\",\"resourceVersion\":\"1\","
+                + "\"labels\":{\"a\":\"1\",\"c\":\"3\"}},\"spec\":{\"replicas\":2,\"args\":[\"x\"]}}");
+
+        assertEquals(Serialization.jsonMapper().readTree("{\"metadata\":{\"labels\":{\"b\":null,\"c\":\"3\"}},"
+                + "\"spec\":{\"replicas\":2,\"args\":[\"x\"],\"defaulted\":null}}"), OperandUtils.mergePatch(current, desired));
+        assertTrue(OperandUtils.mergePatch(current, current).isEmpty());
+    }
+
+    @Test public void testMergePatchWrites() throws Exception {
+        Deployment current = client.apps().deployments().create(deployment());
+
+        Deployment desired = new DeploymentBuilder(current).editSpec().withReplicas(2).endSpec().build();
+        ApiTraffic replace = ApiTraffic.measure(server,
+                () -> OperandUtils.createOrUpdate(client.apps().deployments(), desired, current, WriteMode.REPLACE));
+        Deployment replaced = client.apps().deployments().inNamespace("test").withName("deployment").get();
+
+        Deployment patchDesired = new DeploymentBuilder(replaced).editSpec().withReplicas(3).endSpec().build();
+        ApiTraffic patch = ApiTraffic.measure(server,
+                () -> OperandUtils.createOrUpdate(client.apps().deployments(), patchDesired, replaced, WriteMode.MERGE_PATCH));
+
+        assertEquals(List.of("PUT"), replace.requests, replace.toString());
+        // the fabric8 patch operation reads the resource before patching it
+        assertEquals(List.of("GET", "PATCH"), patch.requests, patch.toString());
+        assertTrue(patch.bytes * 20 < replace.bytes, patch + " is not much smaller than " + replace);
+        Deployment patched = client.apps().deployments().inNamespace("test").withName("deployment").get();
+        assertEquals(3, patched.getSpec().getReplicas());
+        assertEquals(replaced.getSpec().getTemplate(), patched.getSpec().getTemplate());
+
+        // nothing is sent when there is no difference
+        ApiTraffic noop = ApiTraffic.measure(server,
+                () -> assertSame(patched, OperandUtils.createOrUpdate(client.apps().deployments(),
+                        new DeploymentBuilder(patched).build(), patched, WriteMode.MERGE_PATCH)));
+        assertTrue(noop.requests.isEmpty(), noop.toString());
+    }
+
+    @Test public void testSemanticallyEqual() {
+        Deployment desired = deployment();
+        desired.getSpec().getTemplate().getSpec().getContainers().get(0).setEnv(List.of(new EnvVar("A", "1", null), new EnvVar("B", "2", null)));
+        desired.getSpec().getTemplate().getSpec().getContainers().add(new ContainerBuilder().withName("other").withImage("other").build());
+
+        // as returned by the server, with defaults, generated metadata and reordered lists
+        Deployment current = new DeploymentBuilder(desired)
+                .editMetadata()
+                    .withResourceVersion("2")
+                    .withUid("uid")
+                    .addToAnnotations("deployment.kubernetes.io/revision", "1")
+                .endMetadata()
+                .editSpec()
+                    .withRevisionHistoryLimit(10)
+                    .editTemplate()
+                        .editSpec()
+                            .withDnsPolicy("ClusterFirst")
+                            .withNewSecurityContext()
+                            .endSecurityContext()
+                            .withContainers(new ContainerBuilder(desired.getSpec().getTemplate().getSpec().getContainers().get(1)).build(),
+                                    new ContainerBuilder(desired.getSpec().getTemplate().getSpec().getContainers().get(0))
+                                        .withImagePullPolicy("IfNotPresent")
+                                        .withEnv(new EnvVar("B", "2", null), new EnvVar("A", "1", null))
+                                        .build())
+                        .endSpec()
+                    .endTemplate()
+                .endSpec()
+                .withNewStatus()
+                    .withReplicas(1)
+                .endStatus()
+                .build();
+
+        assertTrue(OperandUtils.isSemanticallyEqual(desired, current));
+
+        Deployment changed = new DeploymentBuilder(desired).editSpec().withReplicas(2).endSpec().build();
+        assertFalse(OperandUtils.isSemanticallyEqual(changed, current));
+
+        Deployment relabelled = new DeploymentBuilder(desired).editMetadata().addToLabels("app", "other").endMetadata().build();
+        assertFalse(OperandUtils.isSemanticallyEqual(relabelled, current));
+
+        // removing something that is not defaulted is a change
+        Deployment removed = new DeploymentBuilder(desired).build();
+        removed.getSpec().getTemplate().getSpec().getContainers().get(0).setArgs(null);
+        assertFalse(OperandUtils.isSemanticallyEqual(removed, current));
+        removed.getSpec().getTemplate().getSpec().getContainers().remove(1);
+        assertFalse(OperandUtils.isSemanticallyEqual(removed, current));
+    }
+
+    @Test public void testRemovedMetadataIsAChange() {
+        Deployment current = new DeploymentBuilder(deployment())
+                .editMetadata()
+                    .addToAnnotations("deployment.kubernetes.io/revision", "1")
+                    .addToAnnotations("strimzi.io/pause-reconciliation", "true")
+                .endMetadata()
+                .build();
+
+        // the controller owned revision is ignored, but not the removal of the pause annotation
+        assertFalse(OperandUtils.isSemanticallyEqual(deployment(), current));
+        assertTrue(OperandUtils.isSemanticallyEqual(new DeploymentBuilder(deployment())
+                .editMetadata().addToAnnotations("strimzi.io/pause-reconciliation", "true").endMetadata().build(), current));
+
+        Deployment relabelled = new DeploymentBuilder(deployment()).editMetadata().addToLabels("other", "label").endMetadata().build();
+        assertFalse(OperandUtils.isSemanticallyEqual(deployment(), relabelled));
+    }
+
+    @Test public void testDefaultedPathsAreKindSpecific() {
+        GenericKubernetesResource desired = new GenericKubernetesResourceBuilder()
+                .withApiVersion("kafka.strimzi.io/v1beta2")
+                .withKind("Kafka")
+                .withNewMetadata()
+                    .withNamespace("test")
+                    .withName("kafka")
+                .endMetadata()
+                .withAdditionalProperties(Map.of("spec", Map.of("listeners", List.of(Map.of("name", "external", "port", 9094)))))
+                .build();
+        GenericKubernetesResource current = new GenericKubernetesResourceBuilder(desired)
+                .withAdditionalProperties(Map.of("spec", Map.of("listeners", List.of(Map.of("name", "external", "port", 9094, "type", "route")))))
+                .build();
+
+        // a field named like a Deployment or Service default is still a change elsewhere
+        assertFalse(OperandUtils.isSemanticallyEqual(desired, current));
+
+        Service service = new ServiceBuilder()
+                .withNewMetadata()
+                    .withNamespace("test")
+                    .withName("service")
+                .endMetadata()
+                .withNewSpec()
+                    .addNewPort()
+                        .withName("http")
+                        .withPort(80)
+                    .endPort()
+                .endSpec()
+                .build();
+        Service defaulted = new ServiceBuilder(service)
+                .editSpec()
+                    .withType("ClusterIP")
+                    .withClusterIP("10.0.0.1")
+                    .editFirstPort()
+                        .withProtocol("TCP")
+                        .withTargetPort(new IntOrString(80))
+                    .endPort()
+                .endSpec()
+                .build();
+        assertTrue(OperandUtils.isSemanticallyEqual(service, defaulted));
+    }
+
+    @Test public void testWriteElision() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            Deployment current = client.apps().deployments().create(deployment());
+
+            for (WriteMode mode : WriteMode.values()) {
+                ApiTraffic traffic = ApiTraffic.measure(server,
+                        () -> assertSame(current, OperandUtils.createOrUpdate(client.apps().deployments(), deployment(), current, mode)));
+                assertTrue(traffic.requests.isEmpty(), traffic.toString());
+            }
+            OperandUtils.createOrUpdate(client.apps().deployments(), new DeploymentBuilder(deployment()).editSpec().withReplicas(2).endSpec().build(),
+                    current, WriteMode.REPLACE);
+
+            // an empty patch is not sent
+            ApiTraffic traffic = ApiTraffic.measure(server,
+                    () -> assertSame(current, OperandUtils.patch(client.apps().deployments(), deployment(), current, JsonNodeFactory.instance.objectNode())));
+            assertTrue(traffic.requests.isEmpty(), traffic.toString());
+
+            // a patch is counted once it is applied
+            Deployment written = client.apps().deployments().inNamespace("test").withName("deployment").get();
+            OperandUtils.createOrUpdate(client.apps().deployments(), new DeploymentBuilder(deployment()).editSpec().withReplicas(3).endSpec().build(),
+                    written, WriteMode.MERGE_PATCH);
+
+            // a patch that falls back to a replace is counted once
+            client.apps().deployments().inNamespace("test").withName("deployment").delete();
+            OperandUtils.createOrUpdate(client.apps().deployments(), new DeploymentBuilder(deployment()).editSpec().withReplicas(4).endSpec().build(),
+                    written, WriteMode.MERGE_PATCH);
+            assertEquals(4, client.apps().deployments().inNamespace("test").withName("deployment").get().getSpec().getReplicas());
+
+            assertEquals(3, registry.get(OperandUtils.OPERAND_WRITES).tags("kind", "Deployment", "result", "elided").counter().count());
+            assertEquals(3, registry.get(OperandUtils.OPERAND_WRITES).tags("kind", "Deployment", "result", "performed").counter().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test public void testMergePatchDeleted() {
+        Deployment current = client.apps().deployments().create(deployment());
+        client.apps().deployments().inNamespace("test").withName("deployment").delete();
+
+        Deployment desired = new DeploymentBuilder(current).editSpec().withReplicas(2).endSpec().build();
+        OperandUtils.createOrUpdate(client.apps().deployments(), desired, current, WriteMode.MERGE_PATCH);
+
+        Deployment recreated = client.apps().deployments().inNamespace("test").withName("deployment").get();
+        assertNotNull(recreated);
+        assertEquals(2, recreated.getSpec().getReplicas());
+    }
+
 }
@@ -0,0 +1,221 @@
+package org.bf2.common;
+
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntry;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.informers.ListerWatcher;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceInformerFactoryTest {
+
+    private static Pod pod(String name) {
+        Map<String, String> annotations = new HashMap<>();
+        annotations.put(ResourceInformerFactory.LAST_APPLIED_CONFIGURATION, "{}");
+        annotations.put("other", "value");
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withAnnotations(annotations)
+                    .withManagedFields(new ManagedFieldsEntry())
+                .endMetadata()
+                .withNewSpec()
+                    .withNodeName("node")
+                .endSpec()
+                .build();
+    }
+
+    @Test
+    public void testCreateWithTransform() throws Exception {
+        KubernetesServer server = new KubernetesServer(false, true);
+        server.before();
+        try {
+            KubernetesClient client = server.getClient();
+            client.pods().inNamespace("test").create(pod("a"));
+
+            ResourceInformerFactory factory = new ResourceInformerFactory();
+            factory.meterRegistry = new SimpleMeterRegistry();
+            CountDownLatch added = new CountDownLatch(2);
+            ResourceInformer<Pod> informer = factory.create(Pod.class, client.pods().inAnyNamespace(), new ResourceEventHandler<Pod>() {
+                @Override
+                public void onAdd(Pod obj) {
+                    assertNull(obj.getSpec());
+                    added.countDown();
+                }
+
+                @Override
+                public void onUpdate(Pod oldObj, Pod newObj) {
+                }
+
+                @Override
+                public void onDelete(Pod obj, boolean deletedFinalStateUnknown) {
+                }
+            }, Collections.emptyMap(), p -> {
+                p.setSpec(null);
+                return p;
+            });
+            informer.synced().get(10, TimeUnit.SECONDS);
+            assertTrue(factory.allInformersSynced());
+            assertTrue(factory.allInformersWatching());
+            client.pods().inNamespace("test").create(pod("b"));
+            assertTrue(added.await(10, TimeUnit.SECONDS));
+
+            for (Pod pod : informer.getList()) {
+                assertNull(pod.getMetadata().getManagedFields());
+                assertEquals(Map.of("other", "value"), pod.getMetadata().getAnnotations());
+                assertNull(pod.getSpec());
+            }
+
+            Tags tags = Tags.of("kind", "Pod");
+            assertEquals(2, factory.meterRegistry.get(ResourceInformerFactory.INFORMER_CACHE_SIZE).tags(tags).gauge().value());
+            assertTrue(factory.meterRegistry.get(ResourceInformerFactory.INFORMER_CACHE_ESTIMATED_BYTES).tags(tags).gauge().value() > 0);
+            assertEquals(1, factory.meterRegistry.get(ResourceInformerFactory.INFORMER_INITIAL_LIST).tags(tags).timer().count());
+            // the watch may start before or after the second create
+            assertTrue(factory.meterRegistry.get(ResourceInformerFactory.INFORMER_EVENTS).tags(tags.and("action", "added")).counter().count() >= 1);
+            // the time of the last add is recorded after the latch is released
+            assertTrue(factory.meterRegistry.get(ResourceInformerFactory.INFORMER_HANDLER).tags(tags.and("action", "add")).timer().count() >= 1);
+            assertTrue(factory.meterRegistry.get(ResourceInformerFactory.INFORMER_LAST_EVENT_AGE).tags(tags).gauge().value() < 10);
+
+            factory.staleWatchTimeout = Optional.of(Duration.ofMinutes(10));
+            assertTrue(factory.staleInformers().isEmpty());
+            factory.staleWatchTimeout = Optional.of(Duration.ZERO);
+            assertEquals(List.of("Pod"), factory.staleInformers());
+            assertFalse(factory.allInformersWatching());
+        } finally {
+            server.after();
+        }
+    }
+
+    @Test
+    public void testTrimMetadata() {
+        Pod pod = ResourceInformerFactory.trimMetadata(pod("a"));
+
+        assertNull(pod.getMetadata().getManagedFields());
+        assertEquals(Map.of("other", "value"), pod.getMetadata().getAnnotations());
+        assertEquals("node", pod.getSpec().getNodeName());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testTransformingListerWatcher() {
+        ListerWatcher<Pod, PodList> delegate = Mockito.mock(ListerWatcher.class);
+        Mockito.when(delegate.list(Mockito.any())).thenReturn(new PodList(null, new ArrayList<>(List.of(pod("a"), pod("b"))), null, null));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransformingListerWatcher<Pod, PodList> listerWatcher = new TransformingListerWatcher<>(delegate,
+                ResourceInformerFactory::trimMetadata, new InformerMetrics(Pod.class, registry, System::nanoTime));
+
+        PodList list = listerWatcher.list(new ListOptions());
+        assertEquals(2, list.getItems().size());
+        assertTrue(list.getItems().stream().allMatch(p -> p.getMetadata().getManagedFields() == null));
+
+        Watcher<Pod> watcher = Mockito.mock(Watcher.class);
+        listerWatcher.watch(new ListOptions(), watcher);
+        ArgumentCaptor<Watcher<Pod>> captor = ArgumentCaptor.forClass(Watcher.class);
+        Mockito.verify(delegate).watch(Mockito.any(), captor.capture());
+
+        Pod pod = pod("c");
+        captor.getValue().eventReceived(Watcher.Action.ADDED, pod);
+        Mockito.verify(watcher).eventReceived(Watcher.Action.ADDED, pod);
+        assertNull(pod.getMetadata().getManagedFields());
+        captor.getValue().eventReceived(Watcher.Action.MODIFIED, pod);
+        captor.getValue().eventReceived(Watcher.Action.MODIFIED, pod);
+
+        assertEquals(1, registry.get(ResourceInformerFactory.INFORMER_EVENTS).tags("kind", "Pod", "action", "added").counter().count());
+        assertEquals(2, registry.get(ResourceInformerFactory.INFORMER_EVENTS).tags("kind", "Pod", "action", "modified").counter().count());
+        assertEquals(0, registry.get(ResourceInformerFactory.INFORMER_WATCH_RECONNECTS).counter().count());
+        listerWatcher.watch(new ListOptions(), watcher);
+        assertEquals(1, registry.get(ResourceInformerFactory.INFORMER_WATCH_RECONNECTS).counter().count());
+    }
+
+    @Test
+    public void testStaleWatch() {
+        AtomicLong nanoTime = new AtomicLong();
+        InformerMetrics metrics = new InformerMetrics(Pod.class, new SimpleMeterRegistry(), nanoTime::get);
+        Duration timeout = Duration.ofMinutes(10);
+
+        // never stale until a watch is observed
+        nanoTime.addAndGet(timeout.multipliedBy(2).toNanos());
+        assertFalse(metrics.isStale(timeout));
+
+        metrics.watchStarted();
+        nanoTime.addAndGet(timeout.toNanos());
+        assertFalse(metrics.isStale(timeout));
+        nanoTime.incrementAndGet();
+        assertTrue(metrics.isStale(timeout));
+
+        metrics.eventReceived(Watcher.Action.BOOKMARK);
+        assertFalse(metrics.isStale(timeout));
+        assertEquals(Duration.ZERO, metrics.timeSinceLastEvent());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testTimedHandler() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InformerMetrics metrics = new InformerMetrics(Pod.class, registry, System::nanoTime);
+        ResourceEventHandler<Pod> handler = Mockito.mock(ResourceEventHandler.class);
+        ResourceEventHandler<Pod> timed = metrics.timed(handler);
+
+        Pod pod = pod("a");
+        timed.onAdd(pod);
+        timed.onUpdate(pod, pod);
+        timed.onDelete(pod, true);
+
+        Mockito.verify(handler).onAdd(pod);
+        Mockito.verify(handler).onUpdate(pod, pod);
+        Mockito.verify(handler).onDelete(pod, true);
+        for (String action : List.of("add", "update", "delete")) {
+            assertEquals(1, registry.get(ResourceInformerFactory.INFORMER_HANDLER).tags("kind", "Pod", "action", action).timer().count());
+        }
+    }
+
+    @Test
+    public void testMetadataOnly() {
+        Pod pod = pod("a");
+        Pod result = ResourceInformerFactory.metadataOnly(Pod::new).apply(pod);
+
+        assertSame(pod.getMetadata(), result.getMetadata());
+        assertEquals("Pod", result.getKind());
+        assertNull(result.getSpec());
+    }
+
+    @Test
+    public void testEstimateBytes() throws Exception {
+        assertEquals(0, ResourceInformerFactory.estimateBytes(Collections.emptyList()));
+
+        Pod pod = pod("a");
+        long size = Serialization.jsonMapper().writeValueAsBytes(pod).length;
+        List<Pod> pods = IntStream.range(0, 100).mapToObj(i -> pod).collect(Collectors.toList());
+        assertEquals(100 * size, ResourceInformerFactory.estimateBytes(pods));
+    }
+
+}
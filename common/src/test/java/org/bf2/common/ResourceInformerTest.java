@@ -0,0 +1,52 @@
+package org.bf2.common;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceInformerTest {
+
+    private static Pod pod(String namespace, String name, String cluster) {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withNamespace(namespace)
+                    .withName(name)
+                    .withLabels(cluster == null ? null : Map.of("strimzi.io/cluster", cluster))
+                .endMetadata()
+                .build();
+    }
+
+    @Test
+    public void testLabelIndex() {
+        Cache<Pod> cache = new Cache<>();
+        cache.addIndexers(Map.of("cluster", ResourceInformer.labelIndex("strimzi.io/cluster")));
+        Pod a0 = pod("a", "a-kafka-0", "a");
+        Pod a1 = pod("a", "a-kafka-1", "a");
+        Pod b0 = pod("b", "b-kafka-0", "a");
+        cache.put(a0);
+        cache.put(a1);
+        cache.put(b0);
+        cache.put(pod("a", "other", null));
+
+        @SuppressWarnings("unchecked")
+        SharedIndexInformer<Pod> informer = Mockito.mock(SharedIndexInformer.class);
+        Mockito.when(informer.getIndexer()).thenReturn(cache);
+        ResourceInformer<Pod> resourceInformer = new ResourceInformer<>(informer);
+
+        List<Pod> pods = resourceInformer.getByIndex("cluster", Cache.namespaceKeyFunc("a", "a"));
+        assertEquals(2, pods.size());
+        assertTrue(pods.containsAll(List.of(a0, a1)));
+        assertEquals(List.of(b0), resourceInformer.getByIndex("cluster", Cache.namespaceKeyFunc("b", "a")));
+        assertTrue(resourceInformer.getByIndex("cluster", Cache.namespaceKeyFunc("a", "b")).isEmpty());
+    }
+
+}
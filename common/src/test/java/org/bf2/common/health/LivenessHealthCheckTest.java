@@ -5,6 +5,8 @@ import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class LivenessHealthCheckTest {
@@ -18,4 +20,13 @@ public class LivenessHealthCheckTest {
         assertEquals(HealthCheckResponse.Status.UP, livenessHealthCheck.call().getStatus());
     }
 
+    @Test public void testStaleWatch() {
+        LivenessHealthCheck livenessHealthCheck = new LivenessHealthCheck();
+        livenessHealthCheck.resourceInformerFactory = Mockito.mock(ResourceInformerFactory.class);
+        Mockito.when(livenessHealthCheck.resourceInformerFactory.staleInformers()).thenReturn(List.of("Pod", "Secret"));
+        HealthCheckResponse response = livenessHealthCheck.call();
+        assertEquals(HealthCheckResponse.Status.DOWN, response.getStatus());
+        assertEquals("Pod,Secret", response.getData().get().get("stale"));
+    }
+
 }
@@ -1,5 +1,6 @@
 package org.bf2.operator.controllers;
 
+import io.fabric8.kubernetes.client.utils.Serialization;
 import io.javaoperatorsdk.operator.api.reconciler.Context;
 import io.javaoperatorsdk.operator.api.reconciler.ControllerConfiguration;
 import io.javaoperatorsdk.operator.api.reconciler.Reconciler;
@@ -10,12 +11,16 @@ import io.quarkus.scheduler.Scheduled;
 import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
 import org.bf2.common.ConditionUtils;
 import org.bf2.common.ManagedKafkaAgentResourceClient;
+import org.bf2.common.ResourceInformerFactory;
 import org.bf2.operator.events.ControllerEventFilter;
 import org.bf2.operator.managers.CapacityManager;
 import org.bf2.operator.managers.InformerManager;
 import org.bf2.operator.managers.ObservabilityManager;
 import org.bf2.operator.managers.StrimziManager;
+import org.bf2.operator.operands.KafkaInstanceConfigurations;
+import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgentSpec;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgentStatus;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgentStatusBuilder;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaCondition;
@@ -29,8 +34,12 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * The controller for {@link ManagedKafkaAgent}.  However there is currently
@@ -64,22 +73,53 @@ public class ManagedKafkaAgentController implements Reconciler<ManagedKafkaAgent
     @Inject
     InformerManager informerManager;
 
+    @Inject
+    ResourceInformerFactory resourceInformerFactory;
+
+    private volatile ManagedKafkaAgentSpec lastSpec;
+
     @Timed(value = "controller.update", extraTags = {"resource", "ManagedKafkaAgent"}, description = "Time spent processing createOrUpdate calls")
     @Counted(value = "controller.update", extraTags = {"resource", "ManagedKafkaAgent"}, description = "The number of createOrUpdate calls processed")
     @Override
     public UpdateControl<ManagedKafkaAgent> reconcile(ManagedKafkaAgent resource, Context context) {
+        if (!resourceInformerFactory.allInformersSynced()) {
+            log.debug("Informers are not yet synced, delaying the reconcile of the ManagedKafkaAgent");
+            return UpdateControl.<ManagedKafkaAgent>noUpdate().rescheduleAfter(ManagedKafkaController.INFORMER_SYNC_RETRY);
+        }
         capacityManager.getOrCreateResourceConfigMap(resource);
         this.observabilityManager.createOrUpdateObservabilitySecret(resource.getSpec().getObservability(), resource);
-        // since we don't know the prior state, we have to just reconcile everything
-        // in case the spec profile information has changed
-        informerManager.resyncManagedKafka();
+        ManagedKafkaAgentSpec spec = Serialization.clone(resource.getSpec());
+        informerManager.resyncManagedKafka(dependsOnChange(lastSpec, spec));
+        lastSpec = spec;
         return UpdateControl.noUpdate();
     }
 
+    /**
+     * Only the profile capacity of the agent is used by the ManagedKafka reconcile - through the node affinity,
+     * tolerations and resource claims.  The observability and network configuration are handled here and by the
+     * IngressControllerManager.
+     *
+     * @return a predicate matching the ManagedKafka instances that need to be reconciled following a spec change
+     */
+    static Predicate<ManagedKafka> dependsOnChange(ManagedKafkaAgentSpec previous, ManagedKafkaAgentSpec current) {
+        if (previous == null || previous.getCapacity().isEmpty() != current.getCapacity().isEmpty()) {
+            // the prior state is not known or whether profiles are used at all has changed
+            return managedKafka -> true;
+        }
+        Set<String> changedProfiles = new HashSet<>(previous.getCapacity().keySet());
+        changedProfiles.addAll(current.getCapacity().keySet());
+        changedProfiles.removeIf(profile -> Objects.equals(previous.getCapacity().get(profile), current.getCapacity().get(profile)));
+        return managedKafka -> changedProfiles.contains(KafkaInstanceConfigurations.getInstanceType(managedKafka));
+    }
+
     @Timed(value = "controller.status.update", extraTags = {"resource", "ManagedKafkaAgent"}, description = "Time spent processing status updates")
     @Counted(value = "controller.status.update", extraTags = {"resource", "ManagedKafkaAgent"}, description = "The number of status updates")
     @Scheduled(every = "{agent.status.interval}", concurrentExecution = ConcurrentExecution.SKIP)
     void statusUpdateLoop() {
+        if (!resourceInformerFactory.allInformersSynced()) {
+            // the status would be built from incomplete caches
+            return;
+        }
         ManagedKafkaAgent resource = this.agentClient.getByName(this.agentClient.getNamespace(), ManagedKafkaAgentResourceClient.RESOURCE_NAME);
         if (resource != null) {
             // check and reinstate if the observability config changed
@@ -13,9 +13,11 @@ import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
 import org.bf2.common.ConditionUtils;
 import org.bf2.common.ManagedKafkaResourceClient;
+import org.bf2.common.ResourceInformerFactory;
 import org.bf2.operator.events.ControllerEventFilter;
 import org.bf2.operator.events.ResourceEventSource;
 import org.bf2.operator.managers.CapacityManager;
+import org.bf2.operator.managers.InformerManager;
 import org.bf2.operator.managers.IngressControllerManager;
 import org.bf2.operator.managers.KafkaManager;
 import org.bf2.operator.managers.StrimziManager;
@@ -39,6 +41,7 @@ import org.jboss.logging.NDC;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +55,7 @@ public class ManagedKafkaController implements Reconciler<ManagedKafka>, EventSo
 
     // 1 for bootstrap URL + 1 for Admin API server
     private static final int NUM_NON_BROKER_ROUTES = 2;
+    static final Duration INFORMER_SYNC_RETRY = Duration.ofSeconds(5);
 
     @Inject
     Logger log;
@@ -80,6 +84,12 @@ public class ManagedKafkaController implements Reconciler<ManagedKafka>, EventSo
     @Inject
     CapacityManager capacityManager;
 
+    @Inject
+    InformerManager informerManager;
+
+    @Inject
+    ResourceInformerFactory resourceInformerFactory;
+
     /**
      * This logic handles events (edge triggers) using level logic.
      * On any modification to the ManagedKafka or it's owned resources,
@@ -90,6 +100,10 @@ public class ManagedKafkaController implements Reconciler<ManagedKafka>, EventSo
     @Counted(value = "controller.update", extraTags = {"resource", "ManagedKafka"}, description = "The number of createOrUpdate calls")
     @Override
     public UpdateControl<ManagedKafka> reconcile(ManagedKafka managedKafka, Context context) {
+        if (!resourceInformerFactory.allInformersSynced()) {
+            log.debugf("Informers are not yet synced, delaying the reconcile of %s/%s", managedKafka.getMetadata().getNamespace(), managedKafka.getMetadata().getName());
+            return UpdateControl.<ManagedKafka>noUpdate().rescheduleAfter(INFORMER_SYNC_RETRY);
+        }
         if (managedKafka.getId() != null) {
             NDC.push(ManagedKafkaResourceClient.ID_LOG_KEY + "=" + managedKafka.getId());
         }
@@ -113,6 +127,11 @@ public class ManagedKafkaController implements Reconciler<ManagedKafka>, EventSo
                 }
             }
             updateManagedKafkaStatus(managedKafka, invalid);
+            if (invalid.filter(CapacityManager::isWaitingForResources).isPresent()) {
+                // nothing else will trigger the admission once the nodes have room
+                return UpdateControl.updateStatus(managedKafka)
+                        .rescheduleAfter(capacityManager.getAdmissionRetryInterval());
+            }
             return UpdateControl.updateStatus(managedKafka);
         } finally {
             if (managedKafka.getId() != null) {
@@ -123,6 +142,7 @@ public class ManagedKafkaController implements Reconciler<ManagedKafka>, EventSo
 
     @Override
     public Map<String, EventSource> prepareEventSources(EventSourceContext<HasMetadata> context) {
+        informerManager.setManagedKafkaCache(context.getPrimaryCache());
         return Map.of("ownedResources", eventSource);
     }
     /**
@@ -0,0 +1,83 @@
+package org.bf2.operator.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.javaoperatorsdk.operator.processing.event.source.filter.OnUpdateFilter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Update filter for the resources owned by a {@code ManagedKafka}, used by the {@link ResourceEventSource}.
+ * This event filter will accept any change where the resource:
+ * <ul>
+ * <li>is resynced, that is the old and new resource are the same instance
+ * <li>generation, labels, annotations, owner references or deletion timestamp have changed
+ * <li>fields of its kind that may affect the operator output have changed, such as the spec or the readiness
+ * reported in the status
+ * </ul>
+ * Changes to the resourceVersion alone, the observedGeneration and the last transition / update / heartbeat
+ * times of conditions are ignored.
+ */
+public class OwnedResourceEventFilter implements OnUpdateFilter<HasMetadata> {
+
+    /**
+     * The top level fields compared for each kind, for other kinds everything other than the metadata is compared
+     */
+    static final Map<String, List<String>> RELEVANT_FIELDS = Map.of(
+            "Deployment", List.of("spec", "status"),
+            "Service", List.of("spec", "status"),
+            "ConfigMap", List.of("data", "binaryData", "immutable"),
+            "Secret", List.of("data", "stringData", "type", "immutable"),
+            "Route", List.of("spec", "status"),
+            "Kafka", List.of("spec", "status"));
+
+    static final Set<String> VOLATILE_FIELDS = Set.of("resourceVersion", "managedFields", "observedGeneration",
+            "lastTransitionTime", "lastUpdateTime", "lastHeartbeatTime", "lastProbeTime");
+
+    @Override
+    public boolean accept(HasMetadata oldResource, HasMetadata newResource) {
+        if (oldResource == newResource) {
+            return true;
+        }
+        ObjectMeta oldMeta = oldResource.getMetadata();
+        ObjectMeta newMeta = newResource.getMetadata();
+        if (!Objects.equals(oldMeta.getGeneration(), newMeta.getGeneration())
+                || !Objects.equals(oldMeta.getLabels(), newMeta.getLabels())
+                || !Objects.equals(oldMeta.getAnnotations(), newMeta.getAnnotations())
+                || !Objects.equals(oldMeta.getOwnerReferences(), newMeta.getOwnerReferences())
+                || !Objects.equals(oldMeta.getDeletionTimestamp(), newMeta.getDeletionTimestamp())) {
+            return true;
+        }
+        JsonNode oldJson = Serialization.jsonMapper().valueToTree(oldResource);
+        JsonNode newJson = Serialization.jsonMapper().valueToTree(newResource);
+        List<String> fields = RELEVANT_FIELDS.get(newResource.getKind());
+        if (fields == null) {
+            ((ObjectNode) oldJson).remove("metadata");
+            ((ObjectNode) newJson).remove("metadata");
+            return !withoutVolatileFields(oldJson).equals(withoutVolatileFields(newJson));
+        }
+        for (String field : fields) {
+            if (!withoutVolatileFields(oldJson.path(field)).equals(withoutVolatileFields(newJson.path(field)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static JsonNode withoutVolatileFields(JsonNode node) {
+        if (node.isObject()) {
+            ((ObjectNode) node).remove(VOLATILE_FIELDS);
+        }
+        if (node.isContainerNode()) {
+            node.forEach(OwnedResourceEventFilter::withoutVolatileFields);
+        }
+        return node;
+    }
+
+}
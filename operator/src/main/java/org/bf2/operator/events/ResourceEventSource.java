@@ -3,24 +3,63 @@ package org.bf2.operator.events;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.client.CustomResource;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.javaoperatorsdk.operator.OperatorException;
 import io.javaoperatorsdk.operator.processing.event.ResourceID;
 import io.javaoperatorsdk.operator.processing.event.source.AbstractEventSource;
 import io.javaoperatorsdk.operator.processing.event.source.controller.ResourceAction;
 import io.javaoperatorsdk.operator.processing.event.source.controller.ResourceEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @ApplicationScoped
 public class ResourceEventSource extends AbstractEventSource implements ResourceEventHandler<HasMetadata> {
 
+    public static final String OWNED_RESOURCE_EVENTS = "owned.resource.events";
+    public static final String OWNED_RESOURCE_EVENTS_COALESCED = "owned.resource.events.coalesced";
+    public static final String OWNED_RESOURCE_EVENTS_DELAY = "owned.resource.events.delay";
+
     private static Logger log = Logger.getLogger(ResourceEventSource.class);
 
+    // not injected into the pvc event source created by the InformerManager
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * Events for the same ManagedKafka within this window of the first are delivered as a single event
+     * at the end of the window, so that a burst of changes, such as a Strimzi rolling update, causes one reconcile.
+     * A zero window delivers each event immediately.
+     */
+    @ConfigProperty(name = "managedkafka.event.coalesce-window")
+    Duration coalesceWindow = Duration.ZERO;
+
+    private final OwnedResourceEventFilter filter = new OwnedResourceEventFilter();
+
+    private final Map<ResourceID, PendingEvent> pending = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService coalesceExecutor;
+
+    private static class PendingEvent {
+        final long firstEvent = System.nanoTime();
+        int events = 1;
+    }
+
     @Override
     public void onAdd(HasMetadata resource) {
         log.debugf("Add event received for %s %s/%s", resource.getKind(), resource.getMetadata().getNamespace(), resource.getMetadata().getName());
+        countEvent(resource, "forwarded");
         handleEvent(resource, ResourceAction.UPDATED);
     }
 
@@ -31,6 +70,12 @@ public class ResourceEventSource extends AbstractEventSource implements Resource
                 !Objects.equals(oldResource.getMetadata().getOwnerReferences().get(0).getUid(), newResource.getMetadata().getOwnerReferences().get(0).getUid()))) {
             handleEvent(oldResource, ResourceAction.UPDATED);
         }
+        if (!filter.accept(oldResource, newResource)) {
+            log.tracef("Update of %s %s/%s does not need a reconcile", newResource.getKind(), newResource.getMetadata().getNamespace(), newResource.getMetadata().getName());
+            countEvent(newResource, "filtered");
+            return;
+        }
+        countEvent(newResource, "forwarded");
         handleEvent(newResource, ResourceAction.UPDATED);
     }
 
@@ -38,17 +83,80 @@ public class ResourceEventSource extends AbstractEventSource implements Resource
     public void onDelete(HasMetadata resource, boolean deletedFinalStateUnknown) {
         log.debugf("Delete event received for %s %s/%s with deletedFinalStateUnknown %s", resource.getKind(),
                 resource.getMetadata().getNamespace(), resource.getMetadata().getName(), deletedFinalStateUnknown);
+        countEvent(resource, "forwarded");
         handleEvent(resource, ResourceAction.UPDATED);
     }
 
+    private void countEvent(HasMetadata resource, String result) {
+        if (meterRegistry != null) {
+            meterRegistry.counter(OWNED_RESOURCE_EVENTS, "kind", String.valueOf(resource.getKind()), "result", result).increment();
+        }
+    }
+
     protected void handleEvent(HasMetadata resource, ResourceAction action) {
         // the operator may not have inited yet
         if (getEventHandler() != null) {
             ResourceID.fromFirstOwnerReference(resource).ifPresentOrElse(
-                    ownerId -> getEventHandler().handleEvent(new ResourceEvent(action, ownerId, null )),
+                    ownerId -> coalesce(ownerId, action),
                     () -> log.warnf("%s %s/%s does not have OwnerReference", resource.getKind(), resource.getMetadata().getNamespace(), resource.getMetadata().getName()));
         }
     }
+
+    private void coalesce(ResourceID ownerId, ResourceAction action) {
+        if (coalesceWindow == null || coalesceWindow.isZero() || coalesceWindow.isNegative()) {
+            getEventHandler().handleEvent(new ResourceEvent(action, ownerId, null));
+            return;
+        }
+        pending.compute(ownerId, (id, event) -> {
+            if (event != null) {
+                event.events++;
+                return event;
+            }
+            executor().schedule(() -> deliver(id, action), coalesceWindow.toMillis(), TimeUnit.MILLISECONDS);
+            return new PendingEvent();
+        });
+    }
+
+    private void deliver(ResourceID ownerId, ResourceAction action) {
+        PendingEvent event = pending.remove(ownerId);
+        if (event == null) {
+            return;
+        }
+        if (meterRegistry != null) {
+            DistributionSummary.builder(OWNED_RESOURCE_EVENTS_COALESCED)
+                    .description("The number of owned resource events delivered as a single event")
+                    .register(meterRegistry)
+                    .record(event.events);
+            Timer.builder(OWNED_RESOURCE_EVENTS_DELAY)
+                    .description("The time from the first of the coalesced owned resource events to its delivery")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - event.firstEvent, TimeUnit.NANOSECONDS);
+        }
+        getEventHandler().handleEvent(new ResourceEvent(action, ownerId, null));
+    }
+
+    private ScheduledExecutorService executor() {
+        if (coalesceExecutor == null) {
+            synchronized (this) {
+                if (coalesceExecutor == null) {
+                    coalesceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "owned-resource-events");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return coalesceExecutor;
+    }
+
+    @Override
+    public void stop() throws OperatorException {
+        super.stop();
+        if (coalesceExecutor != null) {
+            coalesceExecutor.shutdownNow();
+        }
+    }
     public void handleEvent(CustomResource resource) {
         if (getEventHandler() != null) {
             getEventHandler().handleEvent(new ResourceEvent(ResourceAction.UPDATED, ResourceID.fromResource(resource), null));
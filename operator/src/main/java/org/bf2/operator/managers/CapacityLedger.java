@@ -0,0 +1,160 @@
+package org.bf2.operator.managers;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import org.bf2.operator.managers.CapacityManager.Resources;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The in-memory view of the {@link CapacityManager#FLEETSHARD_RESOURCES} ConfigMap data - the resources claimed
+ * by each ManagedKafka and the total units claimed for each profile.
+ * <br>
+ * Claims and releases are admitted against the ledger immediately and are kept as pending deltas until they are
+ * flushed.  A delta is the latest entry for a ManagedKafka key, or null for a release, so it can be re-applied to a
+ * newer version of the ConfigMap data without double counting.
+ */
+class CapacityLedger {
+
+    // the informer cache may lag behind the versions written, but not by this many
+    private static final int KNOWN_VERSIONS = 1024;
+
+    private final String uid;
+    private final Map<String, String> data;
+    private final Map<String, String> pending = new LinkedHashMap<>();
+    private final Set<String> knownVersions = new LinkedHashSet<>();
+
+    CapacityLedger(ConfigMap configMap) {
+        this.uid = configMap.getMetadata().getUid();
+        this.data = new LinkedHashMap<>(configMap.getData());
+        addKnownVersion(configMap);
+    }
+
+    String getUid() {
+        return uid;
+    }
+
+    synchronized String getClaim(String key) {
+        return data.get(key);
+    }
+
+    synchronized int getTotal(String profile) {
+        return Integer.parseInt(data.getOrDefault(profile, "0"));
+    }
+
+    /**
+     * @return true if the resources were claimed, or were already claimed for the key
+     */
+    synchronized boolean claim(String key, Resources resources, int max) {
+        if (data.containsKey(key)) {
+            return true;
+        }
+        if (getTotal(resources.getProfile()) + resources.getUnits() > max) {
+            return false;
+        }
+        String value = Serialization.asJson(resources);
+        apply(data, key, value);
+        pending.put(key, value);
+        return true;
+    }
+
+    /**
+     * @return true if there was a claim for the key
+     */
+    synchronized boolean release(String key) {
+        if (!data.containsKey(key)) {
+            return false;
+        }
+        apply(data, key, null);
+        pending.put(key, null);
+        return true;
+    }
+
+    synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Remove and return the pending deltas, which should be restored if they cannot be flushed
+     */
+    synchronized Map<String, String> drainPending() {
+        if (pending.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> result = new LinkedHashMap<>(pending);
+        pending.clear();
+        return result;
+    }
+
+    /**
+     * Restore the deltas that could not be flushed, unless they have since been superseded
+     */
+    synchronized void restorePending(Map<String, String> deltas) {
+        deltas.forEach(pending::putIfAbsent);
+    }
+
+    /**
+     * Carry the pending deltas over to a reloaded ledger, so that they are reflected in its data and are
+     * still flushed
+     */
+    synchronized void merge(Map<String, String> deltas) {
+        apply(data, deltas);
+        deltas.forEach(pending::putIfAbsent);
+    }
+
+    /**
+     * Replace the data with what was written to the ConfigMap, which may include the changes of some other
+     * party, and re-apply the deltas that are still pending
+     */
+    synchronized void rebase(ConfigMap written) {
+        data.clear();
+        data.putAll(written.getData());
+        apply(data, pending);
+        addKnownVersion(written);
+    }
+
+    synchronized void addKnownVersion(ConfigMap configMap) {
+        knownVersions.remove(configMap.getMetadata().getResourceVersion());
+        knownVersions.add(configMap.getMetadata().getResourceVersion());
+        if (knownVersions.size() > KNOWN_VERSIONS) {
+            knownVersions.remove(knownVersions.iterator().next());
+        }
+    }
+
+    /**
+     * @return true if the ConfigMap version was read or written by this ledger, rather than by some other party
+     */
+    synchronized boolean isKnownVersion(ConfigMap configMap) {
+        return knownVersions.contains(configMap.getMetadata().getResourceVersion());
+    }
+
+    /**
+     * @return a copy of the entries with keys starting with the prefix
+     */
+    synchronized Map<String, String> getEntries(String prefix) {
+        return data.entrySet()
+                .stream()
+                .filter(e -> e.getKey().startsWith(prefix))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    static void apply(Map<String, String> data, Map<String, String> deltas) {
+        deltas.forEach((key, value) -> apply(data, key, value));
+    }
+
+    static void apply(Map<String, String> data, String key, String value) {
+        CapacityManager.releaseResources(data, key);
+        if (value != null) {
+            Resources resources = Serialization.unmarshal(value, Resources.class);
+            data.put(key, value);
+            data.merge(resources.getProfile(), String.valueOf(resources.getUnits()),
+                    (a, b) -> String.valueOf(Integer.parseInt(a) + Integer.parseInt(b)));
+        }
+    }
+
+}
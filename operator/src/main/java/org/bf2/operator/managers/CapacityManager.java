@@ -5,12 +5,21 @@ import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
 import lombok.Getter;
 import lombok.Setter;
 import org.bf2.common.ConditionUtils;
 import org.bf2.common.ManagedKafkaResourceClient;
 import org.bf2.common.OperandUtils;
+import org.bf2.operator.managers.SchedulableCapacity.Demand;
 import org.bf2.operator.operands.AbstractKafkaCluster;
+import org.bf2.operator.operands.KafkaInstanceConfiguration;
 import org.bf2.operator.operands.KafkaInstanceConfigurations;
 import org.bf2.operator.operands.KafkaInstanceConfigurations.InstanceType;
 import org.bf2.operator.operands.OperandReadiness;
@@ -22,29 +31,55 @@ import org.bf2.operator.resources.v1alpha1.ManagedKafkaCondition.Status;
 import org.bf2.operator.resources.v1alpha1.Profile;
 import org.bf2.operator.resources.v1alpha1.ProfileCapacity;
 import org.bf2.operator.resources.v1alpha1.ProfileCapacityBuilder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import java.net.HttpURLConnection;
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Responsible for ensuring the resources for a given ManagedKafka are available
  * prior to allowing the deployment to proceed.
+ * <br>
+ * Claims are admitted against an in-memory {@link CapacityLedger} loaded from the resources ConfigMap.  The callers
+ * then wait for their change to be written - concurrent changes are flushed together in a single resource version
+ * locked replace, which is re-applied to the latest ConfigMap on a conflict.  The ledger is then rebased onto the
+ * data that was written.
+ * <br>
+ * When resource admission is enabled a claim must also fit within the {@link SchedulableCapacity} of the nodes,
+ * including those the autoscaler may still add up to the max nodes of the profile.  An instance that could never fit
+ * is rejected, while one that does not fit yet is deferred.  An instance admitted onto nodes that are yet to be added
+ * has pods pending until the autoscaler adds them, while a deferred one has no pods to trigger the scale out, so it
+ * is only deferred once the profile is at its max nodes.
  */
 @ApplicationScoped
 public class CapacityManager {
 
     public static final String FLEETSHARD_RESOURCES = "kas-fleetshard-resources";
     private static final String MANAGED_KAFKA_PREFIX = "mk-"; // should not conflict with the profile names
+    private static final int MAX_FLUSH_ATTEMPTS = 5;
+
+    public static final String CAPACITY_CLAIM = "capacity.claim";
+    public static final String CAPACITY_FLUSH_BATCH = "capacity.flush.batch";
+    public static final String CAPACITY_FLUSH_CONFLICTS = "capacity.flush.conflicts";
+    public static final String CAPACITY_ORPHANED_UNITS = "capacity.orphaned.units";
+
+    static final String WAITING_FOR_RESOURCES = "Waiting for schedulable resources";
 
     @Getter
     @Setter
-    private static class Resources {
+    static class Resources {
         private String profile;
         private int units;
     }
@@ -61,7 +96,63 @@ public class CapacityManager {
     @Inject
     ManagedKafkaResourceClient managedKafkaClient;
 
-    private boolean checkedForOrphans = false;
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    KafkaInstanceConfigurations configs;
+
+    @ConfigProperty(name = "capacity.resource-admission.enabled")
+    boolean resourceAdmission;
+
+    @ConfigProperty(name = "capacity.resource-admission.retry-interval")
+    Duration admissionRetryInterval;
+
+    @ConfigProperty(name = "capacity.orphan-grace-period")
+    Duration orphanGracePeriod;
+
+    // the entries without a ManagedKafka, and when they were first seen as such
+    private final Map<String, Long> orphans = new ConcurrentHashMap<>();
+    private volatile int orphanedUnits;
+
+    private volatile CapacityLedger ledger;
+    // held while writing to the configmap, the holder writes the changes of all waiting callers
+    private final Object flushLock = new Object();
+    // held while claiming or releasing against the ledger, and while it is replaced, so no change is lost to a replaced ledger
+    private final Object admissionLock = new Object();
+    private ConfigMap lastWritten;
+
+    // the admitted instances whose pods have yet to be scheduled
+    private final Map<String, ManagedKafka> unscheduled = new ConcurrentHashMap<>();
+
+    private Timer acceptedClaims;
+    private Timer rejectedClaims;
+    private Timer deferredClaims;
+    private DistributionSummary flushBatch;
+    private Counter flushConflicts;
+
+    @PostConstruct
+    void init() {
+        acceptedClaims = claimTimer("accepted");
+        rejectedClaims = claimTimer("rejected");
+        deferredClaims = claimTimer("deferred");
+        flushBatch = DistributionSummary.builder(CAPACITY_FLUSH_BATCH)
+                .description("The number of resource claims and releases written together to the resources ConfigMap")
+                .register(meterRegistry);
+        flushConflicts = Counter.builder(CAPACITY_FLUSH_CONFLICTS)
+                .description("The number of resources ConfigMap writes that had to be re-applied to a newer version")
+                .register(meterRegistry);
+        Gauge.builder(CAPACITY_ORPHANED_UNITS, this, m -> m.orphanedUnits)
+                .description("The units claimed for ManagedKafkas that no longer exist, which have yet to be released")
+                .register(meterRegistry);
+    }
+
+    private Timer claimTimer(String result) {
+        return Timer.builder(CAPACITY_CLAIM)
+                .tag("result", result)
+                .description("The time taken to claim resources for a ManagedKafka, including the write of the claim")
+                .register(meterRegistry);
+    }
 
     /**
      * Will nominally attempt to create the configmap, if it already exists the existing one will be returned
@@ -72,13 +163,9 @@ public class CapacityManager {
     public synchronized ConfigMap getOrCreateResourceConfigMap(ManagedKafkaAgent agent) {
         ConfigMap configMap = getCachedResourceConfigMap();
         if (configMap != null) {
-            if (!checkedForOrphans) {
-                configMap = checkForOrphans(configMap);
-                checkedForOrphans = true;
-            }
+            loadLedger(configMap);
             return configMap;
         }
-        checkedForOrphans = true;
 
         try {
             informerManager.createKafkaInformer();
@@ -109,7 +196,102 @@ public class CapacityManager {
         // update with the totals as well
         totals.forEach((k, v) -> data.put(k, String.valueOf(v)));
 
-        return createResouceConfigMap(agent, data);
+        configMap = createResouceConfigMap(agent, data);
+        loadLedger(configMap);
+        return configMap;
+    }
+
+    /**
+     * Reload the ledger if the configmap has been recreated, or modified by something else while there
+     * are no changes waiting to be written
+     */
+    private void loadLedger(ConfigMap configMap) {
+        CapacityLedger current = ledger;
+        if (current != null && Objects.equals(current.getUid(), configMap.getMetadata().getUid())
+                && (current.isKnownVersion(configMap) || current.hasPending())) {
+            return;
+        }
+        synchronized (flushLock) {
+            // the cached configmap may not reflect a write that was in progress
+            ConfigMap latest = client.configMaps().withName(FLEETSHARD_RESOURCES).get();
+            if (latest != null && Objects.equals(latest.getMetadata().getUid(), configMap.getMetadata().getUid())) {
+                configMap = latest;
+            }
+            synchronized (admissionLock) {
+                CapacityLedger reloaded = new CapacityLedger(configMap);
+                if (ledger != null) {
+                    reloaded.merge(ledger.drainPending());
+                }
+                ledger = reloaded;
+            }
+        }
+    }
+
+    private CapacityLedger getLedger() {
+        CapacityLedger current = ledger;
+        if (current == null) {
+            ConfigMap configMap = Optional.ofNullable(getCachedResourceConfigMap())
+                    .orElseGet(() -> client.configMaps().withName(FLEETSHARD_RESOURCES).get());
+            if (configMap != null) {
+                synchronized (this) {
+                    loadLedger(configMap);
+                }
+            }
+            current = ledger;
+        }
+        return current;
+    }
+
+    /**
+     * Write the pending changes of the ledger, which may have already been written along with the changes of
+     * another caller
+     */
+    void flush() {
+        synchronized (flushLock) {
+            // the ledger is only replaced while holding the flush lock
+            CapacityLedger ledger = this.ledger;
+            if (ledger == null) {
+                return;
+            }
+            Map<String, String> deltas = ledger.drainPending();
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                write(ledger, deltas);
+                flushBatch.record(deltas.size());
+            } catch (RuntimeException e) {
+                ledger.restorePending(deltas);
+                throw e;
+            }
+        }
+    }
+
+    private void write(CapacityLedger ledger, Map<String, String> deltas) {
+        ConfigMap base = lastWritten;
+        if (base == null || !Objects.equals(base.getMetadata().getUid(), ledger.getUid())) {
+            base = Optional.ofNullable(getCachedResourceConfigMap())
+                    .orElseGet(() -> client.configMaps().withName(FLEETSHARD_RESOURCES).require());
+        }
+        for (int attempt = 1;; attempt++) {
+            Map<String, String> data = new LinkedHashMap<>(base.getData());
+            CapacityLedger.apply(data, deltas);
+            try {
+                lastWritten = client.configMaps()
+                        .withName(FLEETSHARD_RESOURCES)
+                        .lockResourceVersion(base.getMetadata().getResourceVersion())
+                        .replace(new ConfigMapBuilder(base).withData(data).build());
+                // after a conflict the base holds the changes of another party, which the ledger must reflect as well
+                ledger.rebase(lastWritten);
+                return;
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HttpURLConnection.HTTP_CONFLICT || attempt >= MAX_FLUSH_ATTEMPTS) {
+                    throw e;
+                }
+                flushConflicts.increment();
+                base = client.configMaps().withName(FLEETSHARD_RESOURCES).require();
+            }
+        }
     }
 
     private ConfigMap createResouceConfigMap(ManagedKafkaAgent agent, Map<String, String> data) {
@@ -140,30 +322,48 @@ public class CapacityManager {
         }
     }
 
-    ConfigMap checkForOrphans(ConfigMap configMap) {
-        boolean update = false;
-        Map<String, String> newData = new LinkedHashMap<>(configMap.getData());
-        for (Map.Entry<String, String> entry : configMap.getData().entrySet()) {
-            if (!entry.getKey().startsWith(MANAGED_KAFKA_PREFIX)) {
-                continue;
-            }
-            if (client.resources(ManagedKafka.class)
-                    .withLabel(ManagedKafka.ID, entry.getKey().substring(MANAGED_KAFKA_PREFIX.length()))
-                    .list()
-                    .getItems()
-                    .isEmpty()) {
-                update = true;
-                releaseResources(newData, entry.getKey());
+    @Scheduled(every = "{capacity.orphan-check.interval}", concurrentExecution = ConcurrentExecution.SKIP)
+    void checkForOrphans() {
+        checkForOrphans(System.currentTimeMillis());
+    }
+
+    /**
+     * Join the claimed entries against the cached ManagedKafkas in a single pass.  As the cache may lag behind
+     * the instances being created, an entry is only released once it has been without a ManagedKafka for the
+     * grace period.
+     */
+    synchronized void checkForOrphans(long now) {
+        CapacityLedger current = getLedger();
+        if (current == null) {
+            orphans.clear();
+            orphanedUnits = 0;
+            return;
+        }
+        Set<String> keys = informerManager.getManagedKafkas()
+                .stream()
+                .map(CapacityManager::getManagedKafkaKey)
+                .collect(Collectors.toSet());
+        Map<String, String> claims = current.getEntries(MANAGED_KAFKA_PREFIX);
+        claims.keySet().removeAll(keys);
+        orphans.keySet().retainAll(claims.keySet());
+
+        boolean released = false;
+        int units = 0;
+        for (Map.Entry<String, String> entry : claims.entrySet()) {
+            long since = orphans.computeIfAbsent(entry.getKey(), k -> now);
+            if (now - since >= orphanGracePeriod.toMillis()) {
+                log.infof("Releasing the resources of %s as there is no longer a ManagedKafka", entry.getKey());
+                released |= release(entry.getKey());
+                unscheduled.remove(entry.getKey());
+                orphans.remove(entry.getKey());
+            } else {
+                units += Serialization.unmarshal(entry.getValue(), Resources.class).units;
             }
         }
-        if (update) {
-            configMap = new ConfigMapBuilder(configMap).withData(newData).build();
-            client.configMaps()
-                    .withName(FLEETSHARD_RESOURCES)
-                    .lockResourceVersion(configMap.getMetadata().getResourceVersion())
-                    .replace(configMap);
+        orphanedUnits = units;
+        if (released) {
+            flush();
         }
-        return configMap;
     }
 
     static Resources createResources(ManagedKafka mk, String currentProfile) {
@@ -174,17 +374,16 @@ public class CapacityManager {
         return resources;
     }
 
-    public synchronized void releaseResources(ManagedKafka managedKafka) {
-        // use the latest
-        ConfigMap resourceConfigMap = client.configMaps().withName(FLEETSHARD_RESOURCES).get();
-        if (resourceConfigMap != null) {
-            String entryKey = getManagedKafkaKey(managedKafka);
-            if (releaseResources(resourceConfigMap.getData(), entryKey)) {
-                client.configMaps()
-                        .withName(FLEETSHARD_RESOURCES)
-                        .lockResourceVersion(resourceConfigMap.getMetadata().getResourceVersion())
-                        .replace(resourceConfigMap);
-            }
+    public void releaseResources(ManagedKafka managedKafka) {
+        unscheduled.remove(getManagedKafkaKey(managedKafka));
+        if (getLedger() != null && release(getManagedKafkaKey(managedKafka))) {
+            flush();
+        }
+    }
+
+    private boolean release(String key) {
+        synchronized (admissionLock) {
+            return ledger.release(key);
         }
     }
 
@@ -192,7 +391,7 @@ public class CapacityManager {
         return MANAGED_KAFKA_PREFIX + managedKafka.getId();
     }
 
-    private boolean releaseResources(Map<String, String> resourceData, String entryKey) {
+    static boolean releaseResources(Map<String, String> resourceData, String entryKey) {
         String previous = resourceData.remove(entryKey);
         if (previous != null) {
             Resources resources = Serialization.unmarshal(previous, Resources.class);
@@ -203,7 +402,7 @@ public class CapacityManager {
         return false;
     }
 
-    synchronized Optional<OperandReadiness> claimResources(ManagedKafka managedKafka, String profile,
+    Optional<OperandReadiness> claimResources(ManagedKafka managedKafka, String profile,
             ManagedKafkaAgent agent) {
         if (managedKafka.isReserveDeployment()) {
             return Optional.empty();
@@ -213,31 +412,119 @@ public class CapacityManager {
             return Optional.empty();
         }
 
-        // ensure we have the latest
-        ConfigMap resourceConfigMap = client.configMaps().withName(FLEETSHARD_RESOURCES).get();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        getOrCreateResourceConfigMap(agent);
 
         Resources resources = createResources(managedKafka, profile);
 
-        int total = Integer.parseInt(resourceConfigMap.getData().getOrDefault(profile, "0"));
+        Optional<OperandReadiness> result;
+        synchronized (admissionLock) {
+            CapacityLedger current = ledger;
+            if (resourceAdmission) {
+                Integer maxNodes = agent.getSpec().getCapacity().get(profile).getMaxNodes();
+                result = admit(managedKafka, resources, maxNodes)
+                        .or(() -> claim(current, managedKafka, resources, max));
+                if (result.isEmpty()) {
+                    unscheduled.put(getManagedKafkaKey(managedKafka), managedKafka);
+                }
+            } else {
+                result = claim(current, managedKafka, resources, max);
+            }
+        }
+        if (result.isPresent()) {
+            sample.stop(result.get().getReason() == Reason.Rejected ? rejectedClaims : deferredClaims);
+            return result;
+        }
+
+        // the claim is not complete until it has been written - this may fail, but we'll retry
+        flush();
+        sample.stop(acceptedClaims);
+        return Optional.empty();
+    }
 
-        int newTotal = resources.units + total;
-        if (newTotal > max) {
+    private Optional<OperandReadiness> claim(CapacityLedger current, ManagedKafka managedKafka, Resources resources,
+            int max) {
+        if (!current.claim(getManagedKafkaKey(managedKafka), resources, max)) {
             log.warnf("Rejecting the deployment of %s/%s as the cluster is full",
                     managedKafka.getMetadata().getNamespace(), managedKafka.getMetadata().getName());
             return Optional
                     .of(new OperandReadiness(Status.False, Reason.Rejected, "Cluster has insufficient resources"));
         }
+        return Optional.empty();
+    }
 
-        // update the configmap in a locked manner - this may fail, but we'll retry
-        resourceConfigMap.getData().put(profile, String.valueOf(newTotal));
-        resourceConfigMap.getData().put(getManagedKafkaKey(managedKafka), Serialization.asJson(resources));
-        client.configMaps()
-                .withName(FLEETSHARD_RESOURCES)
-                .lockResourceVersion(resourceConfigMap.getMetadata().getResourceVersion())
-                .replace(resourceConfigMap);
+    /**
+     * Check that the instance will fit on the nodes of its profile, including those that may still be added.  It is
+     * rejected if it would not fit even on empty nodes, and deferred if it does not fit at the moment.
+     */
+    private Optional<OperandReadiness> admit(ManagedKafka managedKafka, Resources resources, Integer maxNodes) {
+        KafkaInstanceConfiguration config = configs.getConfig(managedKafka);
+        if (config == null) {
+            return Optional.empty();
+        }
+        Demand demand = Demand.of(config, resources.units);
+        SchedulableCapacity capacity = getSchedulableCapacity(resources.profile, maxNodes);
+        if (capacity.getMax(demand) < 1) {
+            log.warnf("Rejecting the deployment of %s/%s as it will not fit on the nodes",
+                    managedKafka.getMetadata().getNamespace(), managedKafka.getMetadata().getName());
+            return Optional
+                    .of(new OperandReadiness(Status.False, Reason.Rejected, "Cluster has insufficient resources"));
+        }
+        if (capacity.getRemaining(demand) < 1) {
+            log.infof("Deferring the deployment of %s/%s until the nodes have room for it",
+                    managedKafka.getMetadata().getNamespace(), managedKafka.getMetadata().getName());
+            return Optional.of(new OperandReadiness(Status.False, Reason.Installing, WAITING_FOR_RESOURCES));
+        }
         return Optional.empty();
     }
 
+    /**
+     * The capacity of the nodes for the profile, less what is held for the admitted instances whose pods
+     * have yet to be scheduled.  Pods that are already scheduled may be counted twice until they all are.
+     */
+    SchedulableCapacity getSchedulableCapacity(String profile, Integer maxNodes) {
+        unscheduled.values().removeIf(this::isScheduled);
+        SchedulableCapacity capacity = new SchedulableCapacity(informerManager.getLocalNodes(),
+                informerManager.getLocalPods(), profile, maxNodes);
+        unscheduled.values()
+                .stream()
+                .filter(mk -> profile.equals(KafkaInstanceConfigurations.getInstanceType(mk)))
+                .map(mk -> Optional.ofNullable(configs.getConfig(mk))
+                        .map(c -> Demand.of(c, createResources(mk, profile).units)))
+                .flatMap(Optional::stream)
+                .forEach(capacity::reserve);
+        return capacity;
+    }
+
+    /**
+     * @return true if all of the broker and zookeeper pods of the instance have been scheduled
+     */
+    private boolean isScheduled(ManagedKafka managedKafka) {
+        KafkaInstanceConfiguration config = configs.getConfig(managedKafka);
+        if (config == null) {
+            return true;
+        }
+        int expected = Demand.of(config, createResources(managedKafka, null).units).brokers
+                + config.getZookeeper().getReplicas();
+        long scheduled = informerManager.getLocalKafkaPods(AbstractKafkaCluster.kafkaClusterNamespace(managedKafka),
+                Map.of(InformerManager.STRIMZI_CLUSTER_LABEL, AbstractKafkaCluster.kafkaClusterName(managedKafka)))
+                .stream()
+                .filter(p -> p.getSpec() != null && p.getSpec().getNodeName() != null)
+                .count();
+        return scheduled >= expected;
+    }
+
+    /**
+     * @return true if the readiness is that of an instance deferred until there are resources for it
+     */
+    public static boolean isWaitingForResources(OperandReadiness readiness) {
+        return readiness.getReason() == Reason.Installing && WAITING_FOR_RESOURCES.equals(readiness.getMessage());
+    }
+
+    public Duration getAdmissionRetryInterval() {
+        return admissionRetryInterval;
+    }
+
     /**
      * For now we are operating under the assumption that nothing can change about the resources used by a managed kafka
      *
@@ -288,11 +575,14 @@ public class CapacityManager {
             return Optional.empty();
         }
         String profile = KafkaInstanceConfigurations.getInstanceType(managedKafka);
-        ConfigMap resourceConfigMap = getOrCreateResourceConfigMap(localAgent);
-        String claimedResources = resourceConfigMap.getData().get(getManagedKafkaKey(managedKafka));
+        getOrCreateResourceConfigMap(localAgent);
+        CapacityLedger current = ledger;
+        String claimedResources = current.getClaim(getManagedKafkaKey(managedKafka));
         if (claimedResources == null) {
             return claimResources(managedKafka, profile, localAgent);
         }
+        // a previous attempt to write the claim may have failed
+        flush();
         return validateResources(managedKafka, profile, claimedResources);
     }
 
@@ -305,18 +595,23 @@ public class CapacityManager {
 
         Map<String, Profile> profiles = resource.getSpec().getCapacity();
 
-        ConfigMap resourceConfigMap = getOrCreateResourceConfigMap(resource);
+        getOrCreateResourceConfigMap(resource);
+        CapacityLedger current = ledger;
 
         for (String key : profiles.keySet()) {
-            getProfileMaxUnits(profiles, key).ifPresent(max ->
+            getProfileMaxUnits(profiles, key).ifPresent(max -> {
+                int remaining = max - current.getTotal(key);
+                if (resourceAdmission) {
+                    // the headroom of the nodes, including those that may still be added, in single unit instances
+                    Demand demand = Demand.of(configs.getConfig(InstanceType.fromLowerName(key)), 1);
+                    remaining = Math.min(remaining,
+                            getSchedulableCapacity(key, profiles.get(key).getMaxNodes()).getRemaining(demand));
+                }
                 capacity.put(key,
                         new ProfileCapacityBuilder().withMaxUnits(max)
-                                .withRemainingUnits(Optional.ofNullable(resourceConfigMap.getData().get(key))
-                                        .map(Integer::valueOf)
-                                        .map(i -> max - i)
-                                        .orElse(max))
-                                .build())
-            );
+                                .withRemainingUnits(remaining)
+                                .build());
+            });
         }
         return capacity;
     }
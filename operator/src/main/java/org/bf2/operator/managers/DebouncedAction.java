@@ -0,0 +1,72 @@
+package org.bf2.operator.managers;
+
+import io.fabric8.kubernetes.client.utils.CachedSingleThreadScheduler;
+import io.micrometer.core.instrument.Timer;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an action once the requests for it have stopped for the quiet period, but no later than the max delay
+ * after the first request, so that a burst of requests results in a single execution.
+ * <br>
+ * The action is run on the single thread of the scheduler, so executions never overlap.  A request made
+ * while the action is running schedules another execution.
+ */
+class DebouncedAction {
+
+    private static final Logger log = Logger.getLogger(DebouncedAction.class);
+
+    private final Runnable action;
+    private final Duration quietPeriod;
+    private final Duration maxDelay;
+    private final CachedSingleThreadScheduler scheduler;
+    private final Timer delay;
+
+    private boolean scheduled;
+    private long firstRequested;
+    private long lastRequested;
+
+    /**
+     * @param delay records the time from the first request until the action is run
+     */
+    DebouncedAction(Runnable action, Duration quietPeriod, Duration maxDelay, CachedSingleThreadScheduler scheduler, Timer delay) {
+        this.action = action;
+        this.quietPeriod = quietPeriod;
+        this.maxDelay = maxDelay;
+        this.scheduler = scheduler;
+        this.delay = delay;
+    }
+
+    synchronized void request() {
+        lastRequested = System.nanoTime();
+        if (!scheduled) {
+            scheduled = true;
+            firstRequested = lastRequested;
+            scheduler.schedule(this::run, quietPeriod.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void run() {
+        long first;
+        synchronized (this) {
+            long remaining = Math.min(lastRequested + quietPeriod.toNanos(), firstRequested + maxDelay.toNanos())
+                    - System.nanoTime();
+            if (remaining > 0) {
+                scheduler.schedule(this::run, remaining, TimeUnit.NANOSECONDS);
+                return;
+            }
+            // requests from here on schedule another execution
+            scheduled = false;
+            first = firstRequested;
+        }
+        delay.record(System.nanoTime() - first, TimeUnit.NANOSECONDS);
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.error("Debounced action failed", e);
+        }
+    }
+
+}
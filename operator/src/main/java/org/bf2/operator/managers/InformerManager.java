@@ -1,19 +1,27 @@
 package org.bf2.operator.managers;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeSpec;
+import io.fabric8.kubernetes.api.model.NodeStatus;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodSpec;
+import io.fabric8.kubernetes.api.model.PodStatus;
+import io.fabric8.kubernetes.api.model.ResourceRequirementsBuilder;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
-import io.fabric8.kubernetes.client.CustomResource;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.fabric8.kubernetes.client.informers.cache.Cache;
 import io.fabric8.openshift.api.model.Route;
+import io.javaoperatorsdk.operator.processing.event.source.ResourceCache;
 import io.javaoperatorsdk.operator.processing.event.source.controller.ResourceAction;
 import io.quarkus.runtime.Startup;
 import io.strimzi.api.kafka.KafkaList;
@@ -25,16 +33,26 @@ import org.bf2.common.ResourceInformerFactory;
 import org.bf2.operator.events.ResourceEventSource;
 import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Startup
@@ -56,6 +74,23 @@ public class InformerManager {
     @Inject
     OpenShiftSupport openShiftSupport;
 
+    /**
+     * Resyncs of more than one ManagedKafka are spread randomly over this period, so that a single
+     * change does not reconcile the whole fleet at once
+     */
+    @ConfigProperty(name = "managedkafka.resync.jitter")
+    Duration resyncJitter = Duration.ZERO;
+
+    /**
+     * When enabled all pods are cached, so that instances are only admitted when the worker nodes have room
+     * for them
+     */
+    @ConfigProperty(name = "capacity.resource-admission.enabled")
+    boolean resourceAdmission;
+
+    static final String STRIMZI_CLUSTER_LABEL = "strimzi.io/cluster";
+    static final String STRIMZI_NAME_LABEL = "strimzi.io/name";
+
     private final Deque<ResourceEventHandler<Kafka>> additionalKafkaInfomerHandlers = new ArrayDeque<>();
     private volatile ResourceInformer<Kafka> kafkaInformer;
     private ResourceInformer<Deployment> deploymentInformer;
@@ -64,7 +99,16 @@ public class InformerManager {
     private ResourceInformer<Secret> secretInformer;
     private ResourceInformer<Route> routeInformer;
     private ResourceInformer<PersistentVolumeClaim> pvcInformer;
+    private ResourceInformer<Pod> kafkaPodInformer;
     private ResourceInformer<ManagedKafkaAgent> managedKafkaAgentInformer;
+    private ResourceInformer<Node> nodeInformer;
+    private ResourceInformer<Pod> podInformer;
+    private volatile ResourceCache<? extends HasMetadata> managedKafkaCache;
+    private final ScheduledExecutorService resyncExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "managedkafka-resync");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     boolean isOpenShift() {
         return openShiftSupport.isOpenShift(kubernetesClient);
@@ -88,9 +132,8 @@ public class InformerManager {
                     @Override
                     protected void handleEvent(HasMetadata resource, ResourceAction action) {
                         if (kafkaInformer != null) {
-                            // TODO: could index by uid, or use namespace
                             String name =
-                                    OperandUtils.getOrDefault(resource.getMetadata().getLabels(), "strimzi.io/cluster", null);
+                                    OperandUtils.getOrDefault(resource.getMetadata().getLabels(), STRIMZI_CLUSTER_LABEL, null);
                             if (name != null) {
                                 Kafka kafka = kafkaInformer
                                         .getByKey(Cache.namespaceKeyFunc(resource.getMetadata().getNamespace(), name));
@@ -100,7 +143,17 @@ public class InformerManager {
                             }
                         }
                     }
-                });
+                },
+                Map.of(STRIMZI_CLUSTER_LABEL, ResourceInformer.labelIndex(STRIMZI_CLUSTER_LABEL)));
+
+        // broker and zookeeper pods, these events are not processed by the event source
+        kafkaPodInformer = resourceInformerFactory.create(Pod.class,
+                kubernetesClient.pods().inAnyNamespace()
+                        .withLabel(OperandUtils.MANAGED_BY_LABEL, OperandUtils.STRIMZI_OPERATOR_NAME)
+                        .withLabelIn(OperandUtils.K8S_NAME_LABEL, "kafka", "zookeeper"),
+                null,
+                Map.of(STRIMZI_NAME_LABEL, ResourceInformer.labelIndex(STRIMZI_NAME_LABEL)),
+                InformerManager::trimKafkaPod);
 
         if (isOpenShift()) {
             routeInformer = resourceInformerFactory.create(Route.class, filterManagedByFleetshardOrStrimzi(openShiftSupport.adapt(kubernetesClient).routes()), eventSource);
@@ -111,6 +164,89 @@ public class InformerManager {
                 kubernetesClient.resources(ManagedKafkaAgent.class)
                         .withName(ManagedKafkaAgentResourceClient.RESOURCE_NAME),
                 null); // these events are not processed by the event source
+
+        // used for the ingress replicas and resource admission, these events are not processed by the event source
+        nodeInformer = resourceInformerFactory.create(Node.class,
+                kubernetesClient.nodes()
+                        .withLabel(IngressControllerManager.WORKER_NODE_LABEL)
+                        .withoutLabel(IngressControllerManager.INFRA_NODE_LABEL),
+                null, Collections.emptyMap(), InformerManager::trimNode);
+
+        if (resourceAdmission) {
+            podInformer = resourceInformerFactory.create(Pod.class, kubernetesClient.pods().inAnyNamespace(), null,
+                    Collections.emptyMap(), InformerManager::trimPod);
+        }
+    }
+
+    @PreDestroy
+    void onStop() {
+        resyncExecutor.shutdownNow();
+    }
+
+    /**
+     * Only the metadata, node name and phase of the kafka pods are read, the rest of the spec and status need not be cached
+     */
+    static Pod trimKafkaPod(Pod pod) {
+        Pod result = ResourceInformerFactory.metadataOnly(Pod::new).apply(pod);
+        result.setSpec(new PodSpec());
+        result.setStatus(new PodStatus());
+        if (pod.getSpec() != null) {
+            result.getSpec().setNodeName(pod.getSpec().getNodeName());
+        }
+        if (pod.getStatus() != null) {
+            result.getStatus().setPhase(pod.getStatus().getPhase());
+        }
+        return result;
+    }
+
+    /**
+     * Only the metadata, schedulability and allocatable resources of the nodes are read
+     */
+    static Node trimNode(Node node) {
+        Node result = ResourceInformerFactory.metadataOnly(Node::new).apply(node);
+        result.setSpec(new NodeSpec());
+        result.setStatus(new NodeStatus());
+        if (node.getSpec() != null) {
+            result.getSpec().setUnschedulable(node.getSpec().getUnschedulable());
+        }
+        if (node.getStatus() != null) {
+            result.getStatus().setAllocatable(node.getStatus().getAllocatable());
+        }
+        return result;
+    }
+
+    /**
+     * Only the node name, phase, container and init container requests, and overhead of the pods are read,
+     * the metadata is not needed
+     */
+    static Pod trimPod(Pod pod) {
+        Pod result = trimKafkaPod(pod);
+        result.getMetadata().setLabels(null);
+        result.getMetadata().setAnnotations(null);
+        result.getMetadata().setOwnerReferences(null);
+        if (pod.getSpec() != null) {
+            result.getSpec().setContainers(trimContainers(pod.getSpec().getContainers()));
+            result.getSpec().setInitContainers(trimContainers(pod.getSpec().getInitContainers()));
+            result.getSpec().setOverhead(pod.getSpec().getOverhead());
+        }
+        return result;
+    }
+
+    private static List<Container> trimContainers(List<Container> containers) {
+        if (containers == null) {
+            return null;
+        }
+        return containers.stream()
+                .map(c -> {
+                    Container container = new Container();
+                    if (c.getResources() != null) {
+                        container.setResources(new ResourceRequirementsBuilder()
+                                .withRequests(c.getResources().getRequests())
+                                .build());
+                    }
+                    return container;
+                })
+                .collect(Collectors.toList());
     }
 
     static <T extends HasMetadata> FilterWatchListDeletable<T, ? extends KubernetesResourceList<T>> filter(
@@ -159,8 +295,7 @@ public class InformerManager {
 
     public Stream<Route> getRoutesInNamespace(String namespace) {
         if (isOpenShift()) {
-            return routeInformer.getList().stream()
-                    .filter(r -> r.getMetadata().getNamespace().equals(namespace));
+            return routeInformer.getByNamespace(namespace).stream();
         } else {
             log.warn("Not running on OpenShift cluster, Routes are not available");
             return Stream.empty();
@@ -208,27 +343,96 @@ public class InformerManager {
         return Collections.emptyList();
     }
 
+    /**
+     * Set the ManagedKafka cache maintained by the controller, which is used in preference to a list
+     */
+    public void setManagedKafkaCache(ResourceCache<? extends HasMetadata> managedKafkaCache) {
+        this.managedKafkaCache = managedKafkaCache;
+    }
+
+    public List<ManagedKafka> getManagedKafkas() {
+        ResourceCache<? extends HasMetadata> cache = this.managedKafkaCache;
+        if (cache == null) {
+            // the controller has not yet started
+            return kubernetesClient.resources(ManagedKafka.class).inAnyNamespace().list().getItems();
+        }
+        return cache.list().map(ManagedKafka.class::cast).collect(Collectors.toList());
+    }
+
     public void resyncManagedKafka() {
-        resyncResource(ManagedKafka.class);
+        resyncManagedKafka(managedKafka -> true);
     }
 
-    public void resyncManagedKafkaAgent() {
-        resyncResource(ManagedKafkaAgent.class);
+    /**
+     * Trigger the reconcile of the ManagedKafka instances that depend on an external change.
+     * When there is more than one the events are spread over the resync jitter.
+     */
+    public void resyncManagedKafka(Predicate<ManagedKafka> dependsOnChange) {
+        List<ManagedKafka> list = getManagedKafkas().stream().filter(dependsOnChange).collect(Collectors.toList());
+        log.debugf("ManagedKafka instances to be resynced: %d", list.size());
+        long jitter = resyncJitter.toMillis();
+        if (list.size() <= 1 || jitter <= 0) {
+            list.forEach(eventSource::handleEvent);
+            return;
+        }
+        list.forEach(managedKafka -> resyncExecutor.schedule(() -> eventSource.handleEvent(managedKafka),
+                ThreadLocalRandom.current().nextLong(jitter), TimeUnit.MILLISECONDS));
     }
 
-    protected <T extends CustomResource<?, ?>> void resyncResource(Class<T> resourceType) {
-        List<T> list = kubernetesClient.resources(resourceType).inAnyNamespace().list().getItems();
-        log.debugf("%s instances to be resynced: %d", resourceType.getSimpleName(), list.size());
-        list.forEach(resource -> {
-            this.eventSource.handleEvent(resource);
-        });
+    public void resyncManagedKafkaAgent() {
+        List<ManagedKafkaAgent> list = managedKafkaAgentInformer.getList();
+        log.debugf("ManagedKafkaAgent instances to be resynced: %d", list.size());
+        list.forEach(eventSource::handleEvent);
     }
 
     public void resyncManagedKafka(ManagedKafka managedKafka) {
         this.eventSource.handleEvent(managedKafka);
     }
 
-    public List<PersistentVolumeClaim> getPvcsInNamespace(String namespace) {
-        return this.pvcInformer.getByNamespace(namespace);
+    /**
+     * Get the broker pvcs of the named Kafka
+     */
+    public List<PersistentVolumeClaim> getLocalKafkaPvcs(String namespace, String kafkaName) {
+        return this.pvcInformer.getByIndex(STRIMZI_CLUSTER_LABEL, Cache.namespaceKeyFunc(namespace, kafkaName));
+    }
+
+    /**
+     * Get the strimzi managed broker and zookeeper pods in the namespace that have all of the given labels
+     */
+    public List<Pod> getLocalKafkaPods(String namespace, Map<String, String> labels) {
+        String strimziName = labels.get(STRIMZI_NAME_LABEL);
+        List<Pod> pods = strimziName != null
+                ? this.kafkaPodInformer.getByIndex(STRIMZI_NAME_LABEL, Cache.namespaceKeyFunc(namespace, strimziName))
+                : this.kafkaPodInformer.getByNamespace(namespace);
+        return pods.stream()
+                .filter(p -> p.getMetadata().getLabels() != null
+                        && p.getMetadata().getLabels().entrySet().containsAll(labels.entrySet()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the worker nodes, excluding the infra nodes
+     */
+    public List<Node> getLocalNodes() {
+        return nodeInformer.getList();
+    }
+
+    public Node getLocalNode(String name) {
+        return nodeInformer.getByKey(name);
+    }
+
+    /**
+     * Get the pods in all namespaces, which are only available when resource admission is enabled
+     */
+    public List<Pod> getLocalPods() {
+        return podInformer != null ? podInformer.getList() : Collections.emptyList();
+    }
+
+    public void registerKafkaPodHandler(ResourceEventHandler<Pod> handler) {
+        this.kafkaPodInformer.addEventHandler(handler);
+    }
+
+    public void registerNodeHandler(ResourceEventHandler<Node> handler) {
+        this.nodeInformer.addEventHandler(handler);
     }
 }
@@ -8,17 +8,14 @@ import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.IntOrString;
 import io.fabric8.kubernetes.api.model.LabelSelector;
 import io.fabric8.kubernetes.api.model.Node;
-import io.fabric8.kubernetes.api.model.NodeList;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.ResourceRequirements;
 import io.fabric8.kubernetes.api.model.ResourceRequirementsBuilder;
 import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.api.model.TolerationBuilder;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
-import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
@@ -36,13 +33,14 @@ import io.fabric8.openshift.api.model.operator.v1.IngressControllerBuilder;
 import io.fabric8.openshift.api.model.operator.v1.IngressControllerList;
 import io.fabric8.openshift.api.model.operator.v1.IngressControllerTuningOptions;
 import io.fabric8.openshift.client.OpenShiftClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.arc.properties.UnlessBuildProperty;
 import io.quarkus.runtime.Startup;
 import io.quarkus.scheduler.Scheduled;
 import io.strimzi.api.kafka.model.Kafka;
 import io.strimzi.api.kafka.model.KafkaClusterSpec;
-import io.strimzi.api.kafka.model.listener.arraylistener.GenericKafkaListener;
-import io.strimzi.api.kafka.model.listener.arraylistener.GenericKafkaListenerConfiguration;
 import org.apache.commons.codec.binary.Base32;
 import org.bf2.common.OperandUtils;
 import org.bf2.common.ResourceInformer;
@@ -50,7 +48,6 @@ import org.bf2.common.ResourceInformerFactory;
 import org.bf2.operator.ManagedKafkaKeys;
 import org.bf2.operator.ManagedKafkaKeys.Labels;
 import org.bf2.operator.operands.AbstractKafkaCluster;
-import org.bf2.operator.operands.KafkaCluster;
 import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgentSpec;
@@ -67,6 +64,7 @@ import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -101,6 +99,11 @@ import java.util.stream.Stream;
 @UnlessBuildProperty(name = "kafka", stringValue = "dev", enableIfMissing = true)
 public class IngressControllerManager {
 
+    public static final String INGRESSCONTROLLER_RECONCILE_REQUESTED = "ingresscontroller.reconcile.requested";
+    public static final String INGRESSCONTROLLER_RECONCILE_EXECUTED = "ingresscontroller.reconcile.executed";
+    public static final String INGRESSCONTROLLER_RECONCILE_DELAY = "ingresscontroller.reconcile.delay";
+    public static final String INGRESSCONTROLLER_RECONCILE = "ingresscontroller.reconcile";
+
     private static final String MAX_CONNECTIONS = "maxConnections";
     private static final String RELOAD_INTERVAL = "reloadInterval";
     private static final String DYNAMIC_CONFIG_MANAGER = "dynamicConfigManager";
@@ -151,12 +154,13 @@ public class IngressControllerManager {
     @Inject
     OperandOverrideManager overrideManager;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
     private Map<String, String> routeMatchLabels = new ConcurrentHashMap<>();
 
-    ResourceInformer<Pod> brokerPodInformer;
-    ResourceInformer<Node> nodeInformer;
     ResourceInformer<IngressController> ingressControllerInformer;
-    private boolean ready;
+    private volatile boolean ready;
 
     @ConfigProperty(name = "ingresscontroller.limit-cpu")
     Optional<Quantity> limitCpu;
@@ -194,12 +198,28 @@ public class IngressControllerManager {
     @ConfigProperty(name = "ingresscontroller.peak-connection-percentage")
     int peakConnectionPercentage;
 
+    /**
+     * A requested reconcile waits until there have been no further requests for the quiet period,
+     * but no longer than the max delay after the first request
+     */
+    @ConfigProperty(name = "ingresscontroller.reconcile.quiet-period")
+    Duration reconcileQuietPeriod;
+    @ConfigProperty(name = "ingresscontroller.reconcile.max-delay")
+    Duration reconcileMaxDelay;
+
     private ResourceInformer<Deployment> deployments;
     private CachedSingleThreadScheduler scheduler = new CachedSingleThreadScheduler();
     private Set<String> deploymentsToReconcile = new HashSet<>();
     private ResourceRequirements azDeploymentResourceRequirements;
     private ResourceRequirements defaultDeploymentResourceRequirements;
 
+    private DebouncedAction reconcileAction;
+    // maintained from the kafka informer events
+    private final IngressDemand ingressDemand = new IngressDemand();
+    private Counter requestedReconciles;
+    private Counter executedReconciles;
+    private Timer reconcileTimer;
+
     public Map<String, String> getRouteMatchLabels() {
         return routeMatchLabels;
     }
@@ -228,6 +248,10 @@ public class IngressControllerManager {
                 .collect(Collectors.toList());
     }
 
+    IngressDemand getIngressDemand() {
+        return ingressDemand;
+    }
+
     public String getClusterDomain() {
         return ingressControllerInformer.getList()
                 .stream()
@@ -240,47 +264,59 @@ public class IngressControllerManager {
 
     @PostConstruct
     protected void onStart() {
+        requestedReconciles = Counter.builder(INGRESSCONTROLLER_RECONCILE_REQUESTED)
+                .description("The number of IngressController reconciles requested by events and the periodic check")
+                .register(meterRegistry);
+        executedReconciles = Counter.builder(INGRESSCONTROLLER_RECONCILE_EXECUTED)
+                .description("The number of IngressController reconciles executed")
+                .register(meterRegistry);
+        reconcileTimer = Timer.builder(INGRESSCONTROLLER_RECONCILE)
+                .description("The time taken to reconcile the IngressControllers")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        reconcileAction = new DebouncedAction(this::reconcileIngressControllers, reconcileQuietPeriod, reconcileMaxDelay,
+                scheduler, Timer.builder(INGRESSCONTROLLER_RECONCILE_DELAY)
+                        .description("The time from the first request of a reconcile until it is executed")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+
         NonNamespaceOperation<IngressController, IngressControllerList, Resource<IngressController>> ingressControllers =
                 openShiftClient.operator().ingressControllers().inNamespace(INGRESS_OPERATOR_NAMESPACE);
 
-        final FilterWatchListDeletable<Node, NodeList> workerNodeFilter = openShiftClient.nodes()
-                .withLabel(WORKER_NODE_LABEL)
-                .withoutLabel(INFRA_NODE_LABEL);
-
-        nodeInformer = resourceInformerFactory.create(Node.class, workerNodeFilter, new ResourceEventHandler<HasMetadata>() {
+        informerManager.registerNodeHandler(new ResourceEventHandler<Node>() {
 
             @Override
-            public void onAdd(HasMetadata obj) {
-                reconcileIngressControllers();
+            public void onAdd(Node obj) {
+                requestReconcile();
             }
 
             @Override
-            public void onUpdate(HasMetadata oldObj, HasMetadata newObj) {
+            public void onUpdate(Node oldObj, Node newObj) {
             }
 
             @Override
-            public void onDelete(HasMetadata obj, boolean deletedFinalStateUnknown) {
-                reconcileIngressControllers();
+            public void onDelete(Node obj, boolean deletedFinalStateUnknown) {
+                requestReconcile();
             }
         });
 
-        FilterWatchListDeletable<Pod, PodList> brokerPodFilter = openShiftClient.pods().inAnyNamespace().withLabels(Map.of(
-                OperandUtils.MANAGED_BY_LABEL, OperandUtils.STRIMZI_OPERATOR_NAME,
-                OperandUtils.K8S_NAME_LABEL, "kafka"));
+        informerManager.registerKafkaInformerHandler(ingressDemand);
 
-        brokerPodInformer = resourceInformerFactory.create(Pod.class, brokerPodFilter, new ResourceEventHandler<HasMetadata>() {
+        informerManager.registerKafkaPodHandler(new ResourceEventHandler<Pod>() {
 
             @Override
-            public void onAdd(HasMetadata obj) {
-                reconcileIngressControllers();
+            public void onAdd(Pod obj) {
+                if (isBrokerPod(obj)) {
+                    requestReconcile();
+                }
             }
 
             @Override
-            public void onUpdate(HasMetadata oldObj, HasMetadata newObj) {
+            public void onUpdate(Pod oldObj, Pod newObj) {
             }
 
             @Override
-            public void onDelete(HasMetadata obj, boolean deletedFinalStateUnknown) {
+            public void onDelete(Pod obj, boolean deletedFinalStateUnknown) {
             }
         });
 
@@ -288,17 +324,17 @@ public class IngressControllerManager {
 
             @Override
             public void onAdd(IngressController obj) {
-                reconcileIngressControllers();
+                requestReconcile();
             }
 
             @Override
             public void onUpdate(IngressController oldObj, IngressController newObj) {
-                reconcileIngressControllers();
+                requestReconcile();
             }
 
             @Override
             public void onDelete(IngressController obj, boolean deletedFinalStateUnknown) {
-                reconcileIngressControllers();
+                requestReconcile();
             }
         });
 
@@ -336,8 +372,11 @@ public class IngressControllerManager {
             });
         }
 
-        ready = true;
-        reconcileIngressControllers();
+        // the informers, including those of the InformerManager, are started concurrently
+        resourceInformerFactory.allSynced().thenRun(() -> {
+            ready = true;
+            requestReconcile();
+        });
     }
 
     private void patchIngressDeploymentResources(Deployment d) {
@@ -407,15 +446,35 @@ public class IngressControllerManager {
     }
 
     @Scheduled(every = "3m", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
-    void reconcileIngressControllers() {
+    void periodicReconcile() {
+        requestReconcile();
+    }
+
+    /**
+     * Request a reconcile of the IngressControllers.  The requests are debounced by the quiet period and
+     * max delay, so that a burst of events results in a single reconcile.
+     */
+    void requestReconcile() {
+        requestedReconciles.increment();
+        reconcileAction.request();
+    }
+
+    /**
+     * Reconcile the IngressControllers now, only a single reconcile is executed at a time
+     */
+    synchronized void reconcileIngressControllers() {
         if (!ready) {
             log.warn("One or more informers are not yet ready");
             return;
         }
+        executedReconciles.increment();
+        reconcileTimer.record(this::doReconcileIngressControllers);
+    }
 
+    private void doReconcileIngressControllers() {
         String defaultDomain = getClusterDomain();
 
-        List<String> zones = nodeInformer.getList().stream()
+        List<String> zones = informerManager.getLocalNodes().stream()
                 .filter(node -> node != null && node.getMetadata().getLabels() != null)
                 .map(node -> node.getMetadata().getLabels().get(TOPOLOGY_KEY))
                 .filter(Objects::nonNull)
@@ -425,23 +484,9 @@ public class IngressControllerManager {
         Map<String, IngressController> zoneToIngressController = new HashMap<>();
         zones.stream().forEach(z -> zoneToIngressController.put(z, ingressControllerInformer.getByKey(Cache.namespaceKeyFunc(INGRESS_OPERATOR_NAMESPACE, "kas-" + z))));
 
-        // someday we might share access to the operator cache
-        List<Kafka> kafkas = informerManager.getKafkas();
-
-        long connectionDemand = kafkas.stream()
-                .map(m -> m.getSpec().getKafka())
-                .map(s -> s.getListeners()
-                        .stream()
-                        .filter(l -> AbstractKafkaCluster.EXTERNAL_LISTENER_NAME.equals(l.getName()))
-                        .map(GenericKafkaListener::getConfiguration)
-                        .map(GenericKafkaListenerConfiguration::getMaxConnections)
-                        .filter(Objects::nonNull)
-                        .map(c -> c * s.getReplicas())
-                        .findFirst())
-                .mapToLong(o -> o.orElse(0))
-                .sum();
+        long connectionDemand = ingressDemand.getConnectionDemand();
 
-        ingressControllersFrom(zoneToIngressController, defaultDomain, kafkas, connectionDemand);
+        ingressControllersFrom(zoneToIngressController, defaultDomain, connectionDemand);
 
         buildDefaultIngressController(zones, defaultDomain, connectionDemand);
 
@@ -529,9 +574,9 @@ public class IngressControllerManager {
         }
     }
 
-    private void ingressControllersFrom(Map<String, IngressController> ingressControllers, String clusterDomain, List<Kafka> kafkas, long connectionDemand) {
-        LongSummaryStatistics egress = summarize(kafkas, KafkaCluster::getFetchQuota, () -> {throw new IllegalStateException("A kafka lacks a fetch quota");});
-        LongSummaryStatistics ingress = summarize(kafkas, KafkaCluster::getProduceQuota, () -> {throw new IllegalStateException("A kafka lacks a produce quota");});
+    private void ingressControllersFrom(Map<String, IngressController> ingressControllers, String clusterDomain, long connectionDemand) {
+        LongSummaryStatistics egress = ingressDemand.getEgress();
+        LongSummaryStatistics ingress = ingressDemand.getIngress();
 
         // there is an assumption that the nodes / brokers will be balanced by zone
         double zonePercentage = 1d / ingressControllers.size();
@@ -682,7 +727,7 @@ public class IngressControllerManager {
     int numReplicasForZone(LongSummaryStatistics ingress, LongSummaryStatistics egress,
             long connectionDemand, double zonePercentage) {
         // use the override if present
-        int minimumReplicaCount = nodeInformer.getList().size() > 0 ? 1:0;
+        int minimumReplicaCount = informerManager.getLocalNodes().size() > 0 ? 1:0;
         if (azReplicaCount.isPresent()) {
             return azReplicaCount.get();
         }
@@ -715,6 +760,9 @@ public class IngressControllerManager {
         return Math.max(minimumReplicaCount, Math.max(connectionReplicaCount, replicaCount));
     }
 
+    /**
+     * The statistics of the per broker quota over all of the kafkas, which are maintained incrementally by the {@link IngressDemand}
+     */
     static LongSummaryStatistics summarize(List<Kafka> kafkas, Function<Kafka, String> quantity,
             Supplier<String> defaultValue) {
         return kafkas.stream()
@@ -729,10 +777,10 @@ public class IngressControllerManager {
 
     int numReplicasForDefault(long connectionDemand) {
         // use the override if present
-        int minimumReplicaCount = nodeInformer.getList().size() > 0 ? 1:0;
+        int minimumReplicaCount = informerManager.getLocalNodes().size() > 0 ? 1:0;
         if (defaultReplicaCount.isPresent()) {
             return defaultReplicaCount.get();
-        } else if (nodeInformer.getList().size() > 3){
+        } else if (informerManager.getLocalNodes().size() > 3){
             // enforce a minimum of two replicas on clusters that can accommodate it when no default specified
             minimumReplicaCount = 2;
         }
@@ -770,18 +818,21 @@ public class IngressControllerManager {
         }
 
         Map<String, String> labels = svc.getSpec().getSelector();
-        Stream<Pod> pods = brokerPodInformer.getList().stream()
-                .filter(p -> p.getMetadata().getNamespace().equals(namespace)
-                        && p.getMetadata().getLabels().entrySet().containsAll(labels.entrySet()));
+        Stream<Pod> pods = informerManager.getLocalKafkaPods(namespace, labels).stream()
+                .filter(IngressControllerManager::isBrokerPod);
 
         return pods
                 .findFirst()
                 .map(p -> p.getSpec().getNodeName())
-                .map(nodeInformer::getByKey)
+                .map(informerManager::getLocalNode)
                 .map(n -> n.getMetadata().getLabels().get(IngressControllerManager.TOPOLOGY_KEY))
                 .orElse("");
     }
 
+    private static boolean isBrokerPod(Pod pod) {
+        return "kafka".equals(OperandUtils.getOrDefault(pod.getMetadata().getLabels(), OperandUtils.K8S_NAME_LABEL, null));
+    }
+
     private boolean isOwnedBy(HasMetadata owned, String ownerKind, String ownerName, String ownerNamespace) {
         boolean sameNamespace = ownerNamespace.equals(owned.getMetadata().getNamespace());
         return sameNamespace &&
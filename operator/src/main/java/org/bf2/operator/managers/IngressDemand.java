@@ -0,0 +1,165 @@
+package org.bf2.operator.managers;
+
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import io.strimzi.api.kafka.model.Kafka;
+import io.strimzi.api.kafka.model.KafkaClusterSpec;
+import io.strimzi.api.kafka.model.listener.arraylistener.GenericKafkaListener;
+import io.strimzi.api.kafka.model.listener.arraylistener.GenericKafkaListenerConfiguration;
+import org.bf2.operator.operands.AbstractKafkaCluster;
+import org.bf2.operator.operands.KafkaCluster;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Running totals of the ingress, egress and connection demand of the Kafkas, maintained from the Kafka informer
+ * events so that the IngressController replica counts do not need to walk every Kafka and broker.
+ * <br>
+ * The throughput statistics are over the per broker quotas, as computed by {@link IngressControllerManager#summarize},
+ * and the connection demand is that of {@link #connectionDemand(List)}.  The per broker values are kept as counts
+ * so that the max remains available as Kafkas are removed.
+ */
+class IngressDemand implements ResourceEventHandler<Kafka> {
+
+    /**
+     * The demand of a single Kafka, the quotas are null if they are missing
+     */
+    private static final class Contribution {
+        final int brokers;
+        final Long ingress;
+        final Long egress;
+        final long connections;
+
+        Contribution(Kafka kafka) {
+            KafkaClusterSpec spec = kafka.getSpec().getKafka();
+            this.brokers = spec.getReplicas();
+            this.ingress = perBroker(kafka, KafkaCluster::getProduceQuota);
+            this.egress = perBroker(kafka, KafkaCluster::getFetchQuota);
+            this.connections = connectionDemand(kafka);
+        }
+
+        private static Long perBroker(Kafka kafka, Function<Kafka, String> quota) {
+            String value = quota.apply(kafka);
+            return value == null ? null : Quantity.getAmountInBytes(Quantity.parse(value)).longValue();
+        }
+    }
+
+    private final Map<String, Contribution> contributions = new HashMap<>();
+    private final TreeMap<Long, Long> ingressBrokers = new TreeMap<>();
+    private final TreeMap<Long, Long> egressBrokers = new TreeMap<>();
+    private long ingressCount;
+    private long ingressSum;
+    private long egressCount;
+    private long egressSum;
+    private long connections;
+    private int missingIngress;
+    private int missingEgress;
+
+    static long connectionDemand(List<Kafka> kafkas) {
+        return kafkas.stream().mapToLong(IngressDemand::connectionDemand).sum();
+    }
+
+    static long connectionDemand(Kafka kafka) {
+        KafkaClusterSpec spec = kafka.getSpec().getKafka();
+        return spec.getListeners()
+                .stream()
+                .filter(l -> AbstractKafkaCluster.EXTERNAL_LISTENER_NAME.equals(l.getName()))
+                .map(GenericKafkaListener::getConfiguration)
+                .filter(Objects::nonNull)
+                .map(GenericKafkaListenerConfiguration::getMaxConnections)
+                .filter(Objects::nonNull)
+                .map(c -> (long) c * spec.getReplicas())
+                .findFirst()
+                .orElse(0L);
+    }
+
+    @Override
+    public void onAdd(Kafka obj) {
+        update(obj);
+    }
+
+    @Override
+    public void onUpdate(Kafka oldObj, Kafka newObj) {
+        update(newObj);
+    }
+
+    @Override
+    public void onDelete(Kafka obj, boolean deletedFinalStateUnknown) {
+        remove(obj);
+    }
+
+    synchronized void update(Kafka kafka) {
+        Contribution contribution = new Contribution(kafka);
+        apply(contributions.put(Cache.metaNamespaceKeyFunc(kafka), contribution), -1);
+        apply(contribution, 1);
+    }
+
+    synchronized void remove(Kafka kafka) {
+        apply(contributions.remove(Cache.metaNamespaceKeyFunc(kafka)), -1);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution == null) {
+            return;
+        }
+        connections += sign * contribution.connections;
+        if (contribution.ingress == null) {
+            missingIngress += sign;
+        } else {
+            ingressCount += sign * contribution.brokers;
+            ingressSum += sign * contribution.ingress * contribution.brokers;
+            count(ingressBrokers, contribution.ingress, sign * contribution.brokers);
+        }
+        if (contribution.egress == null) {
+            missingEgress += sign;
+        } else {
+            egressCount += sign * contribution.brokers;
+            egressSum += sign * contribution.egress * contribution.brokers;
+            count(egressBrokers, contribution.egress, sign * contribution.brokers);
+        }
+    }
+
+    private static void count(TreeMap<Long, Long> brokers, long value, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        brokers.merge(value, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    synchronized int size() {
+        return contributions.size();
+    }
+
+    synchronized long getConnectionDemand() {
+        return connections;
+    }
+
+    synchronized LongSummaryStatistics getIngress() {
+        if (missingIngress > 0) {
+            throw new IllegalStateException("A kafka lacks a produce quota");
+        }
+        return statistics(ingressBrokers, ingressCount, ingressSum);
+    }
+
+    synchronized LongSummaryStatistics getEgress() {
+        if (missingEgress > 0) {
+            throw new IllegalStateException("A kafka lacks a fetch quota");
+        }
+        return statistics(egressBrokers, egressCount, egressSum);
+    }
+
+    private static LongSummaryStatistics statistics(TreeMap<Long, Long> brokers, long count, long sum) {
+        if (count == 0) {
+            return new LongSummaryStatistics();
+        }
+        return new LongSummaryStatistics(count, brokers.firstKey(), brokers.lastKey(), sum);
+    }
+
+}
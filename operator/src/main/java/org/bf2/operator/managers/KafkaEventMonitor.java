@@ -17,6 +17,7 @@ import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import java.util.Collections;
 import java.util.Map;
 
 @Startup
@@ -38,7 +39,8 @@ public class KafkaEventMonitor {
     protected void onStart() {
         FilterWatchListDeletable<Namespace, NamespaceList> namespaceFilter = kubernetesClient.namespaces()
                 .withLabels(Map.of(OperandUtils.MANAGED_BY_LABEL, OperandUtils.FLEETSHARD_OPERATOR_NAME));
-        namespaceInformer = resourceInformerFactory.create(Namespace.class, namespaceFilter, null);
+        namespaceInformer = resourceInformerFactory.create(Namespace.class, namespaceFilter, null, Collections.emptyMap(),
+                ResourceInformerFactory.metadataOnly(Namespace::new));
         startWatch();
     }
 
@@ -0,0 +1,301 @@
+package org.bf2.operator.managers;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodStatus;
+import io.fabric8.kubernetes.api.model.Quantity;
+import org.bf2.common.OperandUtils;
+import org.bf2.operator.operands.KafkaInstanceConfiguration;
+import org.bf2.operator.resources.v1alpha1.ManagedKafka;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * A model of the cpu and memory that can still be scheduled for the Kafka instances of a profile.  It is the
+ * allocatable resources of the worker nodes less the requests of the pods that are running on them.
+ * <br>
+ * The nodes are grouped by zone, as the brokers and zookeepers of an instance are spread evenly across the zones.
+ * When the nodes carry profile labels only those labeled for the profile are considered.
+ * <br>
+ * An instance fits when every zone has room for its share of the instance in total, and enough nodes that can
+ * each hold a whole broker.
+ * <br>
+ * When the nodes are autoscaled, those that may still be added up to the max nodes of the profile are included as
+ * empty nodes.  Their size is that of the smallest existing node, and they are added to the zones with the fewest
+ * nodes.
+ */
+class SchedulableCapacity {
+
+    static final String CPU = "cpu";
+    static final String MEMORY = "memory";
+
+    /**
+     * An amount of cpu, in cores, and memory, in bytes
+     */
+    static final class Amount {
+
+        static final Amount ZERO = new Amount(0, 0);
+
+        final double cpu;
+        final double memory;
+
+        Amount(double cpu, double memory) {
+            this.cpu = cpu;
+            this.memory = memory;
+        }
+
+        static Amount of(Map<String, Quantity> resources) {
+            if (resources == null) {
+                return ZERO;
+            }
+            return new Amount(amount(resources.get(CPU)), amount(resources.get(MEMORY)));
+        }
+
+        static Amount requests(KafkaInstanceConfiguration.Container container) {
+            return of(container.buildResources().getRequests());
+        }
+
+        private static double amount(Quantity quantity) {
+            return quantity == null ? 0 : Quantity.getAmountInBytes(quantity).doubleValue();
+        }
+
+        Amount plus(Amount other) {
+            return new Amount(cpu + other.cpu, memory + other.memory);
+        }
+
+        Amount max(Amount other) {
+            return new Amount(Math.max(cpu, other.cpu), Math.max(memory, other.memory));
+        }
+
+        Amount minus(Amount other) {
+            return new Amount(cpu - other.cpu, memory - other.memory);
+        }
+
+        Amount times(double factor) {
+            return new Amount(cpu * factor, memory * factor);
+        }
+
+        /**
+         * @return how many times the other amount fits within this one
+         */
+        double count(Amount other) {
+            return Math.max(0, Math.min(ratio(cpu, other.cpu), ratio(memory, other.memory)));
+        }
+
+        private static double ratio(double available, double needed) {
+            return needed <= 0 ? Double.POSITIVE_INFINITY : available / needed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("cpu=%.3f memory=%.0f", cpu, memory);
+        }
+    }
+
+    /**
+     * The resources requested by an instance - its brokers, which must each be placed on a single node,
+     * and everything else, which is assumed to be spread across the zones.
+     */
+    static final class Demand {
+
+        final int brokers;
+        final Amount broker;
+        final Amount other;
+
+        Demand(int brokers, Amount broker, Amount other) {
+            this.brokers = brokers;
+            this.broker = broker;
+            this.other = other;
+        }
+
+        /**
+         * The demand of an instance with the given units, using the same replicas and requests as the operands
+         */
+        static Demand of(KafkaInstanceConfiguration config, int units) {
+            int brokers = Objects.requireNonNullElse(config.getKafka().getReplicasOverride(),
+                    config.getKafka().getScalingAndReplicationFactor() * units);
+            Amount other = Amount.requests(config.getZookeeper())
+                    .times(config.getZookeeper().getReplicas())
+                    .plus(Amount.requests(config.getExporter()))
+                    .plus(Amount.requests(config.getAdminserver()))
+                    .plus(Amount.requests(config.getCanary()));
+            if (config.getCruiseControl().isEnabled() && brokers >= config.getCruiseControl().getMinBrokers()) {
+                other = other.plus(Amount.requests(config.getCruiseControl()));
+            }
+            return new Demand(brokers, Amount.requests(config.getKafka()), other);
+        }
+
+        Amount total() {
+            return broker.times(brokers).plus(other);
+        }
+    }
+
+    private final Map<String, List<Amount>> allocatable = new TreeMap<>();
+    private final Map<String, List<Amount>> remaining = new TreeMap<>();
+
+    SchedulableCapacity(Collection<Node> nodes, Collection<Pod> pods, String profile) {
+        this(nodes, pods, profile, null);
+    }
+
+    /**
+     * @param nodes the worker nodes
+     * @param pods the pods, which may include those not scheduled to the nodes
+     * @param profile the instance profile
+     * @param maxNodes the number of nodes the profile may be scaled to, or null if it is not known
+     */
+    SchedulableCapacity(Collection<Node> nodes, Collection<Pod> pods, String profile, Integer maxNodes) {
+        boolean profileLabels = nodes.stream().anyMatch(n -> profileOf(n) != null);
+
+        Map<String, Amount> requested = new HashMap<>();
+        for (Pod pod : pods) {
+            if (isActive(pod)) {
+                requested.merge(pod.getSpec().getNodeName(), requests(pod), Amount::plus);
+            }
+        }
+
+        for (Node node : nodes) {
+            if (!isSchedulable(node) || (profileLabels && !Objects.equals(profile, profileOf(node)))) {
+                continue;
+            }
+            String zone = OperandUtils.getOrDefault(node.getMetadata().getLabels(), IngressControllerManager.TOPOLOGY_KEY, "");
+            Amount nodeAllocatable = Amount.of(node.getStatus() == null ? null : node.getStatus().getAllocatable());
+            allocatable.computeIfAbsent(zone, k -> new ArrayList<>()).add(nodeAllocatable);
+            remaining.computeIfAbsent(zone, k -> new ArrayList<>())
+                    .add(nodeAllocatable.minus(requested.getOrDefault(node.getMetadata().getName(), Amount.ZERO)));
+        }
+
+        if (maxNodes != null) {
+            addScalableNodes(maxNodes - allocatable.values().stream().mapToInt(List::size).sum());
+        }
+    }
+
+    private void addScalableNodes(int count) {
+        Optional<Amount> smallest = allocatable.values()
+                .stream()
+                .flatMap(List::stream)
+                .min(Comparator.comparingDouble((Amount a) -> a.cpu).thenComparingDouble(a -> a.memory));
+        if (smallest.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            String zone = allocatable.entrySet()
+                    .stream()
+                    .min(Comparator.comparingInt(e -> e.getValue().size()))
+                    .get()
+                    .getKey();
+            allocatable.get(zone).add(smallest.get());
+            remaining.get(zone).add(smallest.get());
+        }
+    }
+
+    private static String profileOf(Node node) {
+        return OperandUtils.getOrDefault(node.getMetadata().getLabels(), ManagedKafka.PROFILE_TYPE, null);
+    }
+
+    static boolean isSchedulable(Node node) {
+        return node.getSpec() == null || !Boolean.TRUE.equals(node.getSpec().getUnschedulable());
+    }
+
+    /**
+     * @return true if the pod is scheduled and still holds its requests
+     */
+    static boolean isActive(Pod pod) {
+        String phase = Optional.ofNullable(pod.getStatus()).map(PodStatus::getPhase).orElse(null);
+        return pod.getSpec() != null && pod.getSpec().getNodeName() != null
+                && !"Succeeded".equals(phase) && !"Failed".equals(phase);
+    }
+
+    /**
+     * The effective requests of the pod, as charged by the scheduler - the greater of the sum of the container
+     * requests and the largest init container request, for cpu and memory separately, plus the pod overhead
+     */
+    static Amount requests(Pod pod) {
+        Amount containers = sum(pod.getSpec().getContainers());
+        Amount init = Optional.ofNullable(pod.getSpec().getInitContainers())
+                .map(List::stream)
+                .orElseGet(Stream::empty)
+                .map(SchedulableCapacity::requests)
+                .reduce(Amount.ZERO, Amount::max);
+        return containers.max(init).plus(Amount.of(pod.getSpec().getOverhead()));
+    }
+
+    private static Amount sum(List<Container> containers) {
+        return Optional.ofNullable(containers)
+                .map(List::stream)
+                .orElseGet(Stream::empty)
+                .map(SchedulableCapacity::requests)
+                .reduce(Amount.ZERO, Amount::plus);
+    }
+
+    private static Amount requests(Container container) {
+        return container.getResources() == null ? Amount.ZERO : Amount.of(container.getResources().getRequests());
+    }
+
+    /**
+     * Take the resources of an instance that has been admitted, but whose pods are not yet scheduled
+     */
+    void reserve(Demand demand) {
+        int zones = remaining.size();
+        if (zones == 0) {
+            return;
+        }
+        int brokersPerZone = (int) Math.ceil((double) demand.brokers / zones);
+        Amount otherPerZone = demand.other.times(1.0 / zones);
+        for (List<Amount> nodes : remaining.values()) {
+            for (int i = 0; i < brokersPerZone; i++) {
+                take(nodes, demand.broker);
+            }
+            take(nodes, otherPerZone);
+        }
+    }
+
+    /**
+     * Take the amount from the node with the most cpu remaining
+     */
+    private static void take(List<Amount> nodes, Amount amount) {
+        nodes.stream()
+                .max(Comparator.comparingDouble(a -> a.cpu))
+                .ifPresent(a -> nodes.set(nodes.indexOf(a), a.minus(amount)));
+    }
+
+    /**
+     * @return the number of instances with the given demand that can be scheduled now, or once the nodes are scaled
+     */
+    int getRemaining(Demand demand) {
+        return count(remaining, demand);
+    }
+
+    /**
+     * @return the number of instances with the given demand that could be scheduled if nothing else were running
+     */
+    int getMax(Demand demand) {
+        return count(allocatable, demand);
+    }
+
+    static int count(Map<String, List<Amount>> zones, Demand demand) {
+        if (zones.isEmpty()) {
+            return 0;
+        }
+        double brokersPerZone = (double) demand.brokers / zones.size();
+        Amount perZone = demand.total().times(1.0 / zones.size());
+        double result = Double.POSITIVE_INFINITY;
+        for (List<Amount> nodes : zones.values()) {
+            Amount total = nodes.stream().reduce(Amount.ZERO, Amount::plus);
+            double slots = nodes.stream().mapToDouble(a -> Math.floor(a.count(demand.broker))).sum();
+            double bySlots = brokersPerZone <= 0 ? Double.POSITIVE_INFINITY : slots / brokersPerZone;
+            result = Math.min(result, Math.min(total.count(perZone), bySlots));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.floor(result));
+    }
+
+}
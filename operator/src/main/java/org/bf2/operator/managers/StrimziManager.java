@@ -16,6 +16,7 @@ import io.quarkus.runtime.Startup;
 import io.strimzi.api.kafka.model.Kafka;
 import io.strimzi.api.kafka.model.KafkaBuilder;
 import org.bf2.common.ManagedKafkaAgentResourceClient;
+import org.bf2.common.ResourceInformer;
 import org.bf2.common.ResourceInformerFactory;
 import org.bf2.operator.ManagedKafkaKeys;
 import org.bf2.operator.ManagedKafkaKeys.Annotations;
@@ -96,17 +97,8 @@ public class StrimziManager {
 
     @PostConstruct
     protected void onStart() {
-        // update the initial deployments as a single operation
         FilterWatchListDeletable<Deployment, DeploymentList> deployments = this.kubernetesClient.apps().deployments().inAnyNamespace().withLabels(Map.of("app.kubernetes.io/part-of", "managed-kafka"));
-        for (Deployment deployment : deployments.list().getItems()) {
-            if (isStrimziDeployment(deployment)) {
-                log.debugf("Adding Deployment %s/%s", deployment.getMetadata().getNamespace(),
-                        deployment.getMetadata().getName());
-                updateStrimziVersion(deployment);
-            }
-        }
-        updateStatus();
-        this.resourceInformerFactory.create(Deployment.class,
+        ResourceInformer<Deployment> informer = this.resourceInformerFactory.create(Deployment.class,
                 deployments,
                 new ResourceEventHandler<Deployment>() {
                     @Override
@@ -135,6 +127,17 @@ public class StrimziManager {
                         }
                     }
                 });
+        // update the initial deployments as a single operation from the cache, rather than with a separate list
+        informer.synced().thenRun(() -> {
+            for (Deployment deployment : informer.getList()) {
+                if (isStrimziDeployment(deployment)) {
+                    log.debugf("Adding Deployment %s/%s", deployment.getMetadata().getNamespace(),
+                            deployment.getMetadata().getName());
+                    updateStrimziVersion(deployment);
+                }
+            }
+            updateStatus();
+        });
     }
 
 
@@ -182,9 +185,18 @@ public class StrimziManager {
                 log.debugf("Updating Strimzi versions %s", versions);
                 resource.getStatus().setStrimzi(versions);
                 agentClient.replaceStatus(resource);
-                // version changes should sync the managed kafkas
-                if (existing == null || !toVersionKeySet(versions).equals(toVersionKeySet(existing))) {
+                // version changes should sync the managed kafkas using the added or removed versions
+                if (existing == null) {
                     informerManager.resyncManagedKafka();
+                } else {
+                    Set<String> versionKeys = toVersionKeySet(versions);
+                    Set<String> existingKeys = toVersionKeySet(existing);
+                    if (!versionKeys.equals(existingKeys)) {
+                        Set<String> changed = new HashSet<>(versionKeys);
+                        changed.addAll(existingKeys);
+                        changed.removeIf(version -> versionKeys.contains(version) && existingKeys.contains(version));
+                        informerManager.resyncManagedKafka(managedKafka -> changed.contains(managedKafka.getSpec().getVersions().getStrimzi()));
+                    }
                 }
             }
         }
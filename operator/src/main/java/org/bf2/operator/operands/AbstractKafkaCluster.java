@@ -115,11 +115,8 @@ public abstract class AbstractKafkaCluster implements Operand<ManagedKafka> {
         if (kafka == null) {
             return false;
         }
-        List<Pod> kafkaPods = kubernetesClient.pods()
-                .inNamespace(kafka.getMetadata().getNamespace())
-                .withLabel("strimzi.io/name", kafka.getMetadata().getName() + "-kafka")
-                .list()
-                .getItems();
+        List<Pod> kafkaPods = informerManager.getLocalKafkaPods(kafka.getMetadata().getNamespace(),
+                Map.of("strimzi.io/name", kafka.getMetadata().getName() + "-kafka"));
         boolean isKafkaAnnotationUpdating = false;
         String expectedValue = valueSupplier.apply(kafka);
         for (Pod kafkaPod : kafkaPods) {
@@ -268,7 +265,7 @@ public abstract class AbstractKafkaCluster implements Operand<ManagedKafka> {
     public void createOrUpdate(ManagedKafka managedKafka) {
         Kafka current = cachedKafka(managedKafka);
         Kafka kafka = kafkaFrom(managedKafka, current);
-        createOrUpdate(kafka);
+        createOrUpdate(kafka, current);
 
         boolean reconciliationPaused = isReconciliationPaused(managedKafka);
 
@@ -284,8 +281,11 @@ public abstract class AbstractKafkaCluster implements Operand<ManagedKafka> {
         kafkaResourceClient.delete(kafkaClusterNamespace(managedKafka), kafkaClusterName(managedKafka));
     }
 
-    protected void createOrUpdate(Kafka kafka) {
-        kafkaResourceClient.createOrUpdate(kafka);
+    /**
+     * @param current the cached Kafka, may be null
+     */
+    protected void createOrUpdate(Kafka kafka, Kafka current) {
+        kafkaResourceClient.createOrUpdate(kafka, current);
     }
 
     protected void suspend(ManagedKafka managedKafka) {
@@ -124,7 +124,7 @@ public class AdminServer extends AbstractAdminServer {
                 ingressControllerManagerInstance.get().ensureBlueprintRouteMatching(route, "kafka-admin");
             }
 
-            OperandUtils.createOrUpdate(openShiftClient.routes(), route);
+            OperandUtils.createOrUpdate(openShiftClient.routes(), route, currentRoute);
         }
     }
 
@@ -22,12 +22,18 @@ public abstract class DeploymentOperand implements Operand<ManagedKafka> {
 
     public abstract Deployment deploymentFrom(ManagedKafka managedKafka, Deployment current);
 
-    protected void createOrUpdate(Deployment deployment) {
-        OperandUtils.createOrUpdate(kubernetesClient.apps().deployments(), deployment);
+    /**
+     * @param current the cached deployment, may be null
+     */
+    protected void createOrUpdate(Deployment deployment, Deployment current) {
+        OperandUtils.createOrUpdate(kubernetesClient.apps().deployments(), deployment, current);
     }
 
-    protected void createOrUpdate(Service service) {
-        OperandUtils.createOrUpdate(kubernetesClient.services(), service);
+    /**
+     * @param current the cached service, may be null
+     */
+    protected void createOrUpdate(Service service, Service current) {
+        OperandUtils.createOrUpdate(kubernetesClient.services(), service, current);
     }
 
     protected boolean handleReserveOrWaitForKafka(ManagedKafka managedKafka) {
@@ -38,7 +44,7 @@ public abstract class DeploymentOperand implements Operand<ManagedKafka> {
 
             deployment = ReservedDeploymentConverter.asReservedDeployment(current, deployment, managedKafka);
             if (!Objects.equals(current, deployment)) {
-                createOrUpdate(deployment);
+                createOrUpdate(deployment, current);
             }
             return true;
         }
@@ -8,6 +8,7 @@ import io.fabric8.kubernetes.api.model.ConfigMapKeySelector;
 import io.fabric8.kubernetes.api.model.ConfigMapKeySelectorBuilder;
 import io.fabric8.kubernetes.api.model.LabelSelector;
 import io.fabric8.kubernetes.api.model.NodeAffinity;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaimStatus;
 import io.fabric8.kubernetes.api.model.PodAffinityTerm;
@@ -22,6 +23,7 @@ import io.fabric8.kubernetes.api.model.TopologySpreadConstraint;
 import io.fabric8.kubernetes.api.model.TopologySpreadConstraintBuilder;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
 import io.fabric8.openshift.api.model.Route;
 import io.fabric8.openshift.api.model.TLSConfigBuilder;
 import io.javaoperatorsdk.operator.api.reconciler.Context;
@@ -72,6 +74,7 @@ import org.bf2.operator.managers.OperandOverrideManager;
 import org.bf2.operator.managers.StrimziManager;
 import org.bf2.operator.operands.KafkaInstanceConfiguration.AccessControl;
 import org.bf2.operator.resources.v1alpha1.ManagedKafka;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAuthenticationOAuth;
 import org.bf2.operator.resources.v1alpha1.ServiceAccount;
 import org.eclipse.microprofile.config.Config;
@@ -89,12 +92,14 @@ import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -150,6 +155,25 @@ public class KafkaCluster extends AbstractKafkaCluster {
 
     private static final Map<String, String> SAFE_TO_EVICT = Map.of("cluster-autoscaler.kubernetes.io/safe-to-evict", "true");
 
+    /* the templates are classpath resources, so only need to be parsed once */
+    private final Map<String, ConfigMap> configMapTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * The Kafka last generated for an instance, with the inputs it was generated from
+     */
+    static final class GeneratedKafka {
+        final List<Object> inputs;
+        final Kafka kafka;
+        volatile boolean written;
+
+        GeneratedKafka(List<Object> inputs, Kafka kafka) {
+            this.inputs = inputs;
+            this.kafka = kafka;
+        }
+    }
+
+    private final Map<String, GeneratedKafka> generatedKafkas = new ConcurrentHashMap<>();
+
     @Inject
     Logger log;
 
@@ -180,34 +204,13 @@ public class KafkaCluster extends AbstractKafkaCluster {
 
         secretManager.createOrUpdate(managedKafka);
 
-        ConfigMap currentKafkaMetricsConfigMap = cachedConfigMap(managedKafka, kafkaMetricsConfigMapName(managedKafka));
-        ConfigMap kafkaMetricsConfigMap = configMapFrom(managedKafka, kafkaMetricsConfigMapName(managedKafka));
-        createOrUpdateIfNecessary(currentKafkaMetricsConfigMap, kafkaMetricsConfigMap);
-
-        ConfigMap currentZooKeeperMetricsConfigMap = cachedConfigMap(managedKafka, zookeeperMetricsConfigMapName(managedKafka));
-        ConfigMap zooKeeperMetricsConfigMap = configMapFrom(managedKafka, zookeeperMetricsConfigMapName(managedKafka));
-        createOrUpdateIfNecessary(currentZooKeeperMetricsConfigMap, zooKeeperMetricsConfigMap);
-
-        ConfigMap currentCruiseControlMetricsConfigMap = cachedConfigMap(managedKafka, cruiseControlMetricsConfigMapName(managedKafka));
-        ConfigMap cruiseControlMetricsConfigMap = configMapFrom(managedKafka, cruiseControlMetricsConfigMapName(managedKafka));
-        createOrUpdateIfNecessary(currentCruiseControlMetricsConfigMap, cruiseControlMetricsConfigMap);
-
-        ConfigMap currentKafkaLoggingConfigMap = cachedConfigMap(managedKafka, kafkaLoggingConfigMapName(managedKafka));
-        ConfigMap kafkaLoggingConfigMap = configMapFrom(managedKafka, kafkaLoggingConfigMapName(managedKafka));
-        createOrUpdateIfNecessary(currentKafkaLoggingConfigMap, kafkaLoggingConfigMap);
-
-        ConfigMap currentKafkaExporterLoggingConfigMap = cachedConfigMap(managedKafka, kafkaExporterLoggingConfigMapName(managedKafka));
-        ConfigMap kafkaExporterLoggingConfigMap = configMapFrom(managedKafka, kafkaExporterLoggingConfigMapName(managedKafka));
-        createOrUpdateIfNecessary(currentKafkaExporterLoggingConfigMap, kafkaExporterLoggingConfigMap);
-
-        ConfigMap currentZookeeperLoggingConfigMap = cachedConfigMap(managedKafka, zookeeperLoggingConfigMapName(managedKafka));
-        ConfigMap zookeeperLoggingConfigMap = configMapFrom(managedKafka, zookeeperLoggingConfigMapName(managedKafka));
-        createOrUpdateIfNecessary(currentZookeeperLoggingConfigMap, zookeeperLoggingConfigMap);
-
-        ConfigMap currentCruiseControlLoggingConfigMap = cachedConfigMap(managedKafka, cruiseControlLoggingConfigMapName(managedKafka));
-        ConfigMap cruiseControlLoggingConfigMap = configMapFrom(managedKafka, cruiseControlLoggingConfigMapName(managedKafka));
-
-        createOrUpdateIfNecessary(currentCruiseControlLoggingConfigMap, cruiseControlLoggingConfigMap);
+        createOrUpdateIfNecessary(managedKafka, kafkaMetricsConfigMapName(managedKafka));
+        createOrUpdateIfNecessary(managedKafka, zookeeperMetricsConfigMapName(managedKafka));
+        createOrUpdateIfNecessary(managedKafka, cruiseControlMetricsConfigMapName(managedKafka));
+        createOrUpdateIfNecessary(managedKafka, kafkaLoggingConfigMapName(managedKafka));
+        createOrUpdateIfNecessary(managedKafka, kafkaExporterLoggingConfigMapName(managedKafka));
+        createOrUpdateIfNecessary(managedKafka, zookeeperLoggingConfigMapName(managedKafka));
+        createOrUpdateIfNecessary(managedKafka, cruiseControlLoggingConfigMapName(managedKafka));
 
         if (ingressControllerManagerInstance.isResolvable()) {
             ingressControllerManagerInstance.get().ensureBlueprintRouteMatching(Optional.ofNullable(buildExternalListenerAnnotations(managedKafka)),
@@ -253,7 +256,7 @@ public class KafkaCluster extends AbstractKafkaCluster {
                 resourceExtractor.apply(spec));
 
         if (!Objects.equals(current, reserved)) {
-            OperandUtils.createOrUpdate(kubernetesClient.apps().deployments(), reserved);
+            OperandUtils.createOrUpdate(kubernetesClient.apps().deployments(), reserved, current);
         }
     }
 
@@ -264,18 +267,98 @@ public class KafkaCluster extends AbstractKafkaCluster {
         }
         super.delete(managedKafka, context);
         secretManager.delete(managedKafka);
+        generatedKafkas.remove(Cache.metaNamespaceKeyFunc(managedKafka));
 
         configMapResource(managedKafka, kafkaMetricsConfigMapName(managedKafka)).delete();
         configMapResource(managedKafka, zookeeperMetricsConfigMapName(managedKafka)).delete();
     }
 
-    private void createOrUpdate(ConfigMap configMap) {
-        OperandUtils.createOrUpdate(kubernetesClient.configMaps(), configMap);
+    private void createOrUpdate(ConfigMap configMap, ConfigMap current) {
+        OperandUtils.createOrUpdate(kubernetesClient.configMaps(), configMap, current);
     }
 
+    /**
+     * The generated Kafka is reused, and must not be modified, while the inputs it depends upon are unchanged
+     */
     /* test */
     @Override
     public Kafka kafkaFrom(ManagedKafka managedKafka, Kafka current) {
+        String key = Cache.metaNamespaceKeyFunc(managedKafka);
+        List<Object> inputs = kafkaInputs(managedKafka, current);
+        if (inputs == null) {
+            generatedKafkas.remove(key);
+            return buildKafka(managedKafka, current);
+        }
+        GeneratedKafka generated = generatedKafkas.get(key);
+        if (generated == null || !generated.inputs.equals(inputs)) {
+            generated = new GeneratedKafka(inputs, buildKafka(managedKafka, current));
+            generatedKafkas.put(key, generated);
+        } else {
+            log.tracef("Reusing the generated Kafka %s", key);
+        }
+        return generated.kafka;
+    }
+
+    /**
+     * Collect the inputs, other than the fixed configuration, used by {@link #buildKafka(ManagedKafka, Kafka)}.
+     * The ManagedKafka generation covers the spec and the master secret digest annotation covers the referenced secret values.
+     *
+     * @return the inputs, or null if the Kafka should not be reused
+     */
+    private List<Object> kafkaInputs(ManagedKafka managedKafka, Kafka current) {
+        ObjectMeta metadata = managedKafka.getMetadata();
+        if (metadata.getGeneration() == null
+                || managedKafka.isSuspended()
+                || managedKafka.getAnnotation(ManagedKafkaKeys.Annotations.KAFKA_UPGRADE_START_TIMESTAMP).isPresent()) {
+            // suspension and upgrades depend on the broker pods and may have side effects
+            return null;
+        }
+        if (current != null && StrimziManager.isPauseReasonStrimziUpdate(Objects.requireNonNullElse(current.getMetadata().getAnnotations(), Map.of()))
+                || strimziManager.hasStrimziChanged(managedKafka)
+                || kafkaManager.hasKafkaVersionChanged(managedKafka)
+                || kafkaManager.hasKafkaIbpVersionChanged(managedKafka)) {
+            return null;
+        }
+        String strimzi = managedKafka.getSpec().getVersions().getStrimzi();
+        ManagedKafkaAgent agent = informerManager.getLocalAgent();
+        return Arrays.asList(metadata.getUid(),
+                metadata.getGeneration(),
+                copyOf(metadata.getLabels()),
+                copyOf(metadata.getAnnotations()),
+                current == null ? null : current.getMetadata().getResourceVersion(),
+                Optional.ofNullable(cachedKafka(managedKafka)).map(k -> k.getMetadata().getResourceVersion()).orElse(null),
+                configs.getConfig(managedKafka),
+                overrideManager.getKafkaOverride(strimzi),
+                overrideManager.getKafkaImage(strimzi),
+                overrideManager.getZookeeperImage(strimzi),
+                overrideManager.getKafkaExporterImage(strimzi),
+                overrideManager.useDynamicScalingScheduling(strimzi),
+                overrideManager.useElevatedPriority(strimzi),
+                agent == null ? null : agent.getSpec(),
+                drainCleanerManager.isDrainCleanerWebhookFound(),
+                imagePullSecretManager.getOperatorImagePullSecrets(managedKafka),
+                ingressControllerManagerInstance.isResolvable() ? ingressControllerManagerInstance.get().getRouteMatchLabels() : null);
+    }
+
+    private static Map<String, String> copyOf(Map<String, String> map) {
+        return map == null ? null : new HashMap<>(map);
+    }
+
+    @Override
+    protected void createOrUpdate(Kafka kafka, Kafka current) {
+        GeneratedKafka generated = generatedKafkas.get(Cache.metaNamespaceKeyFunc(kafka));
+        boolean reused = generated != null && generated.kafka == kafka;
+        if (reused && generated.written) {
+            // the inputs include the resourceVersion of the current Kafka, so it still matches what was written
+            return;
+        }
+        super.createOrUpdate(kafka, current);
+        if (reused) {
+            generated.written = true;
+        }
+    }
+
+    private Kafka buildKafka(ManagedKafka managedKafka, Kafka current) {
         KafkaBuilder builder = current != null ? new KafkaBuilder(current) : new KafkaBuilder();
 
         int actualReplicas = getBrokerReplicas(managedKafka, current);
@@ -418,9 +501,16 @@ public class KafkaCluster extends AbstractKafkaCluster {
         return kafkaManager.isKafkaUpgradeStabilityCheckInProgress(managedKafka, this);
     }
 
-    private ConfigMap configMapTemplate(ManagedKafka managedKafka, String name) {
+    /* test */ ConfigMap configMapTemplate(ManagedKafka managedKafka, String name) {
         String templateName = name.substring(managedKafka.getMetadata().getName().length() + 1);
+        return configMapTemplates.computeIfAbsent(templateName, this::loadConfigMapTemplate);
+    }
 
+    /**
+     * Parse and digest the template resource.  The result is cached by {@link #configMapTemplate(ManagedKafka, String)}
+     * and must not be modified.
+     */
+    /* test */ ConfigMap loadConfigMapTemplate(String templateName) {
         try (InputStream is = this.getClass().getClassLoader().getResourceAsStream(templateName + ".yaml")) {
             MessageDigest md = MessageDigest.getInstance("MD5");
             DigestInputStream dis = new DigestInputStream(is, md);
@@ -1011,7 +1101,7 @@ public class KafkaCluster extends AbstractKafkaCluster {
     @Override
     public Quantity calculateRetentionSize(ManagedKafka managedKafka) {
         Kafka current = cachedKafka(managedKafka);
-        long storageInGbs = informerManager.getPvcsInNamespace(managedKafka.getMetadata().getNamespace()).stream().map(pvc -> {
+        long storageInGbs = informerManager.getLocalKafkaPvcs(kafkaClusterNamespace(managedKafka), kafkaClusterName(managedKafka)).stream().map(pvc -> {
             if (pvc.getStatus() == null) {
                 return 0L;
             }
@@ -1227,21 +1317,18 @@ public class KafkaCluster extends AbstractKafkaCluster {
 
     /**
      * Allow local modifications to the configmap to remain until such time a new release provides a new configmap
-     * (which will have a differing digest).
+     * (which will have a differing digest).  The digest is compared with the cached template, so that
+     * the desired configmap is only built when it is to be written.
      */
-    private void createOrUpdateIfNecessary(ConfigMap currentCM, ConfigMap newCM) {
-        if (currentCM == null || isDigestModified(currentCM, newCM)) {
-            createOrUpdate(newCM);
+    private void createOrUpdateIfNecessary(ManagedKafka managedKafka, String name) {
+        ConfigMap currentCM = cachedConfigMap(managedKafka, name);
+        if (currentCM == null || !Objects.equals(digest(currentCM), digest(configMapTemplate(managedKafka, name)))) {
+            createOrUpdate(configMapFrom(managedKafka, name), currentCM);
         }
     }
 
-    private boolean isDigestModified(ConfigMap currentCM, ConfigMap newCM) {
-        if (currentCM == null || newCM == null) {
-            return true;
-        }
-        String currentDigest = currentCM.getMetadata().getAnnotations() == null ? null : currentCM.getMetadata().getAnnotations().get(DIGEST);
-        String newDigest = newCM.getMetadata().getAnnotations() == null ? null : newCM.getMetadata().getAnnotations().get(DIGEST);
-        return !Objects.equals(currentDigest, newDigest);
+    private static String digest(ConfigMap configMap) {
+        return configMap.getMetadata().getAnnotations() == null ? null : configMap.getMetadata().getAnnotations().get(DIGEST);
     }
 
     @Override
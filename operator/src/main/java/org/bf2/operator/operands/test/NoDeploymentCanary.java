@@ -26,7 +26,7 @@ import java.util.Collections;
 public class NoDeploymentCanary extends org.bf2.operator.operands.Canary {
 
     @Override
-    protected void createOrUpdate(Deployment deployment) {
+    protected void createOrUpdate(Deployment deployment, Deployment current) {
         // Canary deployment resource doesn't exist, has to be created
         if (kubernetesClient.configMaps()
                 .inNamespace(deployment.getMetadata().getNamespace())
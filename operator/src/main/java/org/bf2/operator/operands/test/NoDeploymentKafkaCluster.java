@@ -26,7 +26,7 @@ import java.util.Collections;
 public class NoDeploymentKafkaCluster extends org.bf2.operator.operands.KafkaCluster {
 
     @Override
-    protected void createOrUpdate(Kafka kafka) {
+    protected void createOrUpdate(Kafka kafka, Kafka current) {
         // Kafka resource doesn't exist, has to be created
         if (kubernetesClient.configMaps()
                 .inNamespace(kafka.getMetadata().getNamespace())
@@ -22,7 +22,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Mock
@@ -34,14 +37,22 @@ public class MockResourceInformerFactory extends ResourceInformerFactory {
 
     @Override
     public <T extends HasMetadata> ResourceInformer<T> create(Class<T> type, Informable<T> informable,
-            ResourceEventHandler<? super T> eventHandler) {
+            ResourceEventHandler<? super T> eventHandler, Map<String, Function<T, List<String>>> indexers,
+            UnaryOperator<T> transform) {
         lastHandlerAddedPerType.computeIfAbsent(type, aClass -> new ArrayList<>()).add(eventHandler);
         ResourceInformer<T> mock = Mockito.mock(ResourceInformer.class);
+        Mockito.when(mock.synced()).thenReturn(CompletableFuture.completedFuture(null));
+        Mockito.when(mock.isSynced()).thenReturn(true);
         Supplier<List<T>> lister = () -> {
+            List<T> items;
             if (informable instanceof Listable) {
-                return ((Listable<KubernetesResourceList<T>>) informable).list().getItems();
+                items = ((Listable<KubernetesResourceList<T>>) informable).list().getItems();
+            } else {
+                items = Collections.singletonList(((Gettable<T>) informable).get());
             }
-            return Collections.singletonList(((Gettable<T>) informable).get());
+            return items.stream()
+                    .map(i -> i == null ? null : transform.apply(trimMetadata(i)))
+                    .collect(Collectors.toList());
         };
         Mockito.when(mock.getList()).then(new Answer<List<T>>() {
 
@@ -85,6 +96,19 @@ public class MockResourceInformerFactory extends ResourceInformerFactory {
                         .collect(Collectors.toList());
             }
 
+        });
+        Mockito.when(mock.getByIndex(Mockito.anyString(), Mockito.anyString())).then(new Answer<List<T>>() {
+
+            @Override
+            public List<T> answer(InvocationOnMock invocation) throws Throwable {
+                Function<T, List<String>> indexer = indexers.get((String)invocation.getArgument(0));
+                String key = (String)invocation.getArgument(1);
+                return lister.get()
+                        .stream()
+                        .filter(i -> indexer.apply(i).contains(key))
+                        .collect(Collectors.toList());
+            }
+
         });
         return mock;
     }
@@ -94,6 +118,16 @@ public class MockResourceInformerFactory extends ResourceInformerFactory {
         return true;
     }
 
+    @Override
+    public boolean allInformersSynced() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> allSynced() {
+        return CompletableFuture.completedFuture(null);
+    }
+
     public <T> List<ResourceEventHandler<T>> getEventHandlersCreatedFor(Class<T> clazz){
         final ArrayList<ResourceEventHandler<T>> result = new ArrayList<>();
         final List<ResourceEventHandler<?>> resourceEventHandlers = lastHandlerAddedPerType.get(clazz);
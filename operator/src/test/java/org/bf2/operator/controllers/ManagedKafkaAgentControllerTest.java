@@ -9,15 +9,20 @@ import io.quarkus.test.kubernetes.client.KubernetesServerTestResource;
 import org.bf2.common.ManagedKafkaAgentResourceClient;
 import org.bf2.common.OperandUtils;
 import org.bf2.operator.managers.CapacityManager;
+import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgentSpec;
+import org.bf2.operator.resources.v1alpha1.NetworkConfiguration;
 import org.bf2.operator.resources.v1alpha1.ProfileBuilder;
 import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
 
 import java.util.Map;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -89,4 +94,35 @@ public class ManagedKafkaAgentControllerTest {
         client.configMaps().withName(CapacityManager.FLEETSHARD_RESOURCES).delete();
     }
 
+    @Test
+    void testDependsOnChange() {
+        ManagedKafka standard = ManagedKafka.getDummyInstance(1);
+        ManagedKafka developer = ManagedKafka.getDummyInstance(2);
+        developer.getMetadata().setLabels(Map.of(ManagedKafka.PROFILE_TYPE, "developer"));
+
+        ManagedKafkaAgentSpec empty = ManagedKafkaAgentResourceClient.getDummyInstance().getSpec();
+        ManagedKafkaAgentSpec profiles = ManagedKafkaAgentResourceClient.getDummyInstance().getSpec();
+        profiles.setCapacity(Map.of("standard", new ProfileBuilder().withMaxNodes(30).build(), "developer", new ProfileBuilder().withMaxNodes(30).build()));
+
+        // unknown prior state or enabling profiles
+        Predicate<ManagedKafka> all = ManagedKafkaAgentController.dependsOnChange(null, empty);
+        assertTrue(all.test(standard) && all.test(developer));
+        all = ManagedKafkaAgentController.dependsOnChange(empty, profiles);
+        assertTrue(all.test(standard) && all.test(developer));
+
+        // only the instances of the changed profile
+        ManagedKafkaAgentSpec changed = ManagedKafkaAgentResourceClient.getDummyInstance().getSpec();
+        changed.setCapacity(Map.of("standard", new ProfileBuilder().withMaxNodes(30).build(), "developer", new ProfileBuilder().withMaxNodes(60).build()));
+        Predicate<ManagedKafka> developerOnly = ManagedKafkaAgentController.dependsOnChange(profiles, changed);
+        assertFalse(developerOnly.test(standard));
+        assertTrue(developerOnly.test(developer));
+
+        // network changes are handled by the ingress controllers
+        changed = ManagedKafkaAgentResourceClient.getDummyInstance().getSpec();
+        changed.setCapacity(profiles.getCapacity());
+        changed.setNet(new NetworkConfiguration());
+        Predicate<ManagedKafka> none = ManagedKafkaAgentController.dependsOnChange(profiles, changed);
+        assertFalse(none.test(standard) || none.test(developer));
+    }
+
 }
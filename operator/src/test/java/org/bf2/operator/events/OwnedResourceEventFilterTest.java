@@ -0,0 +1,114 @@
+package org.bf2.operator.events;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OwnedResourceEventFilterTest {
+
+    OwnedResourceEventFilter target;
+
+    @BeforeEach
+    void setup() {
+        target = new OwnedResourceEventFilter();
+    }
+
+    private static Deployment deployment() {
+        return new DeploymentBuilder()
+                .withNewMetadata()
+                    .withName("canary")
+                    .withGeneration(1L)
+                    .withResourceVersion("1")
+                .endMetadata()
+                .withNewSpec()
+                    .withReplicas(1)
+                .endSpec()
+                .withNewStatus()
+                    .withObservedGeneration(1L)
+                    .withReadyReplicas(1)
+                    .addNewCondition()
+                        .withType("Available")
+                        .withStatus("True")
+                        .withLastUpdateTime("2022-01-01T00:00:00Z")
+                    .endCondition()
+                .endStatus()
+                .build();
+    }
+
+    @Test
+    void testResyncAccepted() {
+        Deployment deployment = deployment();
+        assertTrue(target.accept(deployment, deployment));
+    }
+
+    @Test
+    void testVolatileChangesFiltered() {
+        Deployment newDeployment = new DeploymentBuilder(deployment())
+                .editMetadata()
+                    .withResourceVersion("2")
+                .endMetadata()
+                .editStatus()
+                    .withObservedGeneration(2L)
+                    .editFirstCondition()
+                        .withLastUpdateTime("2022-01-01T00:01:00Z")
+                    .endCondition()
+                .endStatus()
+                .build();
+
+        assertFalse(target.accept(deployment(), newDeployment));
+    }
+
+    @Test
+    void testReadinessChangeAccepted() {
+        Deployment newDeployment = new DeploymentBuilder(deployment())
+                .editStatus()
+                    .withReadyReplicas(0)
+                    .editFirstCondition()
+                        .withStatus("False")
+                    .endCondition()
+                .endStatus()
+                .build();
+
+        assertTrue(target.accept(deployment(), newDeployment));
+    }
+
+    @Test
+    void testMetadataChangeAccepted() {
+        Deployment newDeployment = new DeploymentBuilder(deployment())
+                .editMetadata()
+                    .withAnnotations(Map.of("key", "value"))
+                .endMetadata()
+                .build();
+
+        assertTrue(target.accept(deployment(), newDeployment));
+    }
+
+    @Test
+    void testConfigMapData() {
+        ConfigMap oldConfigMap = new ConfigMapBuilder().withNewMetadata().withName("cm").withResourceVersion("1").endMetadata()
+                .withData(Map.of("key", "value")).build();
+
+        assertFalse(target.accept(oldConfigMap, new ConfigMapBuilder(oldConfigMap).editMetadata().withResourceVersion("2").endMetadata().build()));
+        assertTrue(target.accept(oldConfigMap, new ConfigMapBuilder(oldConfigMap).withData(Map.of("key", "other")).build()));
+    }
+
+    @Test
+    void testOtherKinds() {
+        PersistentVolumeClaim oldPvc = new PersistentVolumeClaimBuilder().withNewMetadata().withName("pvc").withResourceVersion("1").endMetadata()
+                .withNewStatus().withPhase("Pending").endStatus().build();
+
+        assertFalse(target.accept(oldPvc, new PersistentVolumeClaimBuilder(oldPvc).editMetadata().withResourceVersion("2").endMetadata().build()));
+        assertTrue(target.accept(oldPvc, new PersistentVolumeClaimBuilder(oldPvc).editStatus().withPhase("Bound").endStatus().build()));
+    }
+
+}
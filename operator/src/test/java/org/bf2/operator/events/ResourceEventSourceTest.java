@@ -7,6 +7,9 @@ import io.javaoperatorsdk.operator.processing.event.EventHandler;
 import io.javaoperatorsdk.operator.processing.event.ResourceID;
 import io.javaoperatorsdk.operator.processing.event.source.controller.ResourceAction;
 import io.javaoperatorsdk.operator.processing.event.source.controller.ResourceEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.test.junit.QuarkusTest;
 import org.bf2.common.OperandUtils;
 import org.junit.jupiter.api.Test;
@@ -15,7 +18,14 @@ import org.mockito.Mockito;
 
 import javax.inject.Inject;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 class ResourceEventSourceTest {
@@ -23,6 +33,9 @@ class ResourceEventSourceTest {
     @Inject
     ResourceEventSource resourceEventSource;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
     @Test void testOwnerReferenceRemoved() {
         EventHandler mockEventHandler = Mockito.mock(EventHandler.class);
         resourceEventSource.setEventHandler(mockEventHandler);
@@ -43,6 +56,69 @@ class ResourceEventSourceTest {
         assertEquals(new ResourceID("parent", "ns"), eventCaptor.getValue().getRelatedCustomResourceID());
     }
 
+    @Test void testUnchangedUpdateFiltered() {
+        EventHandler mockEventHandler = Mockito.mock(EventHandler.class);
+        resourceEventSource.setEventHandler(mockEventHandler);
+
+        ConfigMap parent = new ConfigMapBuilder().withNewMetadata().withName("parent").withUid("uid").endMetadata().build();
+        ConfigMap old = new ConfigMapBuilder().withNewMetadata().withName("old").withNamespace("ns").withResourceVersion("1").endMetadata().build();
+        OperandUtils.setAsOwner(parent, old);
+        ConfigMap updated = new ConfigMapBuilder(old).editMetadata().withResourceVersion("2").endMetadata().build();
+
+        double filtered = count("filtered");
+        double forwarded = count("forwarded");
+        resourceEventSource.onUpdate(old, updated);
+        Mockito.verifyNoInteractions(mockEventHandler);
+        assertEquals(filtered + 1, count("filtered"));
+
+        resourceEventSource.onUpdate(old, new ConfigMapBuilder(updated).withData(Map.of("key", "value")).build());
+        Mockito.verify(mockEventHandler).handleEvent(Mockito.any());
+        assertEquals(forwarded + 1, count("forwarded"));
+    }
+
+    private double count(String result) {
+        Counter counter = meterRegistry.find(ResourceEventSource.OWNED_RESOURCE_EVENTS).tags("kind", "ConfigMap", "result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test void testCoalesce() {
+        // not the application scoped proxy, so that the window may be set
+        ResourceEventSource coalescing = new ResourceEventSource();
+        coalescing.meterRegistry = meterRegistry;
+        coalescing.coalesceWindow = Duration.ofMillis(500);
+        EventHandler mockEventHandler = Mockito.mock(EventHandler.class);
+        coalescing.setEventHandler(mockEventHandler);
+
+        ConfigMap parent = new ConfigMapBuilder().withNewMetadata().withName("parent").withUid("uid").endMetadata().build();
+        ConfigMap other = new ConfigMapBuilder().withNewMetadata().withName("other").withUid("other-uid").endMetadata().build();
+
+        DistributionSummary coalesced = meterRegistry.find(ResourceEventSource.OWNED_RESOURCE_EVENTS_COALESCED).summary();
+        long deliveries = coalesced == null ? 0 : coalesced.count();
+        double events = coalesced == null ? 0 : coalesced.totalAmount();
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                ConfigMap owned = new ConfigMapBuilder().withNewMetadata().withName("owned" + i).withNamespace("ns").endMetadata().build();
+                OperandUtils.setAsOwner(i < 9 ? parent : other, owned);
+                coalescing.onAdd(owned);
+            }
+            Mockito.verifyNoInteractions(mockEventHandler);
+
+            // one event for each owner once the window has passed
+            ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+            Mockito.verify(mockEventHandler, Mockito.timeout(5000).times(2)).handleEvent(eventCaptor.capture());
+            assertEquals(Set.of(new ResourceID("parent", "ns"), new ResourceID("other", "ns")),
+                    eventCaptor.getAllValues().stream().map(Event::getRelatedCustomResourceID).collect(Collectors.toSet()));
+        } finally {
+            coalescing.stop();
+        }
+
+        coalesced = meterRegistry.get(ResourceEventSource.OWNED_RESOURCE_EVENTS_COALESCED).summary();
+        assertEquals(deliveries + 2, coalesced.count());
+        assertEquals(events + 10, coalesced.totalAmount());
+        assertTrue(meterRegistry.get(ResourceEventSource.OWNED_RESOURCE_EVENTS_DELAY).timer().max(TimeUnit.MILLISECONDS) >= 500);
+    }
+
     @Test void testDelete() {
         EventHandler mockEventHandler = Mockito.mock(EventHandler.class);
         resourceEventSource.setEventHandler(mockEventHandler);
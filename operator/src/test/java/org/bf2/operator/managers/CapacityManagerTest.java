@@ -2,12 +2,19 @@ package org.bf2.operator.managers;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusMock;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.TestProfile;
 import io.quarkus.test.kubernetes.client.KubernetesServerTestResource;
+import io.quarkus.test.kubernetes.client.KubernetesTestServer;
 import io.strimzi.api.kafka.model.Kafka;
 import io.strimzi.api.kafka.model.KafkaBuilder;
 import org.bf2.common.ManagedKafkaAgentResourceClient;
@@ -20,15 +27,23 @@ import org.bf2.operator.resources.v1alpha1.ManagedKafkaBuilder;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaCondition.Status;
 import org.bf2.operator.resources.v1alpha1.ProfileBuilder;
 import org.bf2.operator.resources.v1alpha1.ProfileCapacity;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import javax.inject.Inject;
 
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -42,12 +57,21 @@ class CapacityManagerTest {
     @Inject
     KubernetesClient client;
 
+    @KubernetesTestServer
+    KubernetesServer server;
+
     @Inject
     CapacityManager capacityManager;
 
     @Inject
     InformerManager informerManager;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "capacity.orphan-grace-period")
+    Duration orphanGracePeriod;
+
     @AfterEach
     void cleanUp() {
         client.configMaps().withName(CapacityManager.FLEETSHARD_RESOURCES).delete();
@@ -141,7 +165,7 @@ class CapacityManagerTest {
 
         // make sure it works over empty data
         ConfigMap resourceMap = capacityManager.getOrCreateResourceConfigMap(dummyInstance);
-        capacityManager.checkForOrphans(resourceMap);
+        capacityManager.checkForOrphans(0);
 
         client.resource(resourceMap).delete();
 
@@ -163,12 +187,24 @@ class CapacityManagerTest {
                         "{\"profile\":\"standard\",\"units\":1}"),
                 resourceMap.getData());
 
+        Mockito.when(mockInformerManager.getManagedKafkas()).thenReturn(List.of(mk));
+        capacityManager.checkForOrphans(0);
+        assertEquals(0, meterRegistry.get(CapacityManager.CAPACITY_ORPHANED_UNITS).gauge().value());
+
         client.resource(mk).delete();
+        Mockito.when(mockInformerManager.getManagedKafkas()).thenReturn(List.of());
+
+        // still within the grace period
+        long now = System.currentTimeMillis();
+        capacityManager.checkForOrphans(now);
+        assertEquals(resourceMap.getData(), client.configMaps().withName(CapacityManager.FLEETSHARD_RESOURCES).get().getData());
+        assertEquals(1, meterRegistry.get(CapacityManager.CAPACITY_ORPHANED_UNITS).gauge().value());
 
-        resourceMap = capacityManager.checkForOrphans(resourceMap);
+        capacityManager.checkForOrphans(now + orphanGracePeriod.toMillis());
 
         // should remove mk-1
-        assertEquals(Map.of("standard", "0"), resourceMap.getData());
+        assertEquals(Map.of("standard", "0"), client.configMaps().withName(CapacityManager.FLEETSHARD_RESOURCES).get().getData());
+        assertEquals(0, meterRegistry.get(CapacityManager.CAPACITY_ORPHANED_UNITS).gauge().value());
     }
 
     @Test
@@ -219,4 +255,114 @@ class CapacityManagerTest {
         assertEquals(Status.False, readiness.getStatus());
     }
 
+    /**
+     * Claims hundreds of instances in parallel against a profile with room for fewer, all claims should be
+     * admitted or rejected against the ledger and the accepted ones written in fewer, larger writes
+     */
+    @Test
+    void testConcurrentClaims() throws Exception {
+        int instances = 200;
+        int maxUnits = 150;
+        ManagedKafkaAgent dummyInstance = ManagedKafkaAgentResourceClient.getDummyInstance();
+        dummyInstance.getMetadata().setNamespace(client.getNamespace());
+        dummyInstance.getSpec()
+                .setCapacity(Map.of("standard", new ProfileBuilder().withMaxNodes(maxUnits * 3).build()));
+
+        InformerManager mockInformerManager = Mockito.mock(InformerManager.class);
+        QuarkusMock.installMockForType(mockInformerManager, InformerManager.class);
+
+        // the cached configmap will not see any of the subsequent writes
+        ConfigMap resourceMap = capacityManager.getOrCreateResourceConfigMap(dummyInstance);
+        Mockito.when(mockInformerManager.getLocalConfigMap(client.getNamespace(), CapacityManager.FLEETSHARD_RESOURCES))
+                .thenReturn(resourceMap);
+
+        Timer accepted = meterRegistry.get(CapacityManager.CAPACITY_CLAIM).tag("result", "accepted").timer();
+        Timer rejected = meterRegistry.get(CapacityManager.CAPACITY_CLAIM).tag("result", "rejected").timer();
+        DistributionSummary batches = meterRegistry.get(CapacityManager.CAPACITY_FLUSH_BATCH).summary();
+        long acceptedBefore = accepted.count();
+        long rejectedBefore = rejected.count();
+        long batchesBefore = batches.count();
+        double batchedBefore = batches.totalAmount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        List<ManagedKafka> managedKafkas = new ArrayList<>();
+        List<Future<Optional<OperandReadiness>>> results = new ArrayList<>();
+        List<ManagedKafka> admitted = new ArrayList<>();
+        try {
+            for (int i = 0; i < instances; i++) {
+                ManagedKafka mk = ManagedKafka.getDummyInstance(i);
+                managedKafkas.add(mk);
+                results.add(executor.submit(() -> capacityManager.claimResources(mk, "standard", dummyInstance)));
+            }
+            for (int i = 0; i < instances; i++) {
+                if (results.get(i).get().isEmpty()) {
+                    admitted.add(managedKafkas.get(i));
+                }
+            }
+            assertEquals(maxUnits, admitted.size());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        resourceMap = client.configMaps().withName(CapacityManager.FLEETSHARD_RESOURCES).get();
+        assertEquals(String.valueOf(maxUnits), resourceMap.getData().get("standard"));
+        assertEquals(maxUnits, resourceMap.getData().keySet().stream().filter(k -> k.startsWith("mk-")).count());
+
+        assertEquals(maxUnits, accepted.count() - acceptedBefore);
+        assertEquals(instances - maxUnits, rejected.count() - rejectedBefore);
+        assertEquals(maxUnits, batches.totalAmount() - batchedBefore);
+        assertTrue(batches.count() - batchesBefore < maxUnits);
+
+        // releases are also written
+        capacityManager.releaseResources(admitted.get(0));
+        resourceMap = client.configMaps().withName(CapacityManager.FLEETSHARD_RESOURCES).get();
+        assertEquals(String.valueOf(maxUnits - 1), resourceMap.getData().get("standard"));
+    }
+
+    /**
+     * A claim written over a change by another party should keep that change, and the ledger should reflect it
+     */
+    @Test
+    void testConflictingWrite() {
+        ManagedKafkaAgent dummyInstance = ManagedKafkaAgentResourceClient.getDummyInstance();
+        dummyInstance.getMetadata().setNamespace(client.getNamespace());
+        dummyInstance.getSpec()
+                .setCapacity(Map.of("standard", new ProfileBuilder().withMaxNodes(30).build()));
+
+        InformerManager mockInformerManager = Mockito.mock(InformerManager.class);
+        QuarkusMock.installMockForType(mockInformerManager, InformerManager.class);
+
+        // the cached configmap will not see any of the subsequent writes
+        ConfigMap resourceMap = capacityManager.getOrCreateResourceConfigMap(dummyInstance);
+        Mockito.when(mockInformerManager.getLocalConfigMap(client.getNamespace(), CapacityManager.FLEETSHARD_RESOURCES))
+                .thenReturn(resourceMap);
+
+        assertTrue(capacityManager.claimResources(ManagedKafka.getDummyInstance(1), "standard", dummyInstance).isEmpty());
+
+        // another party claims as well
+        client.configMaps().withName(CapacityManager.FLEETSHARD_RESOURCES).edit(cm -> new ConfigMapBuilder(cm)
+                .addToData("mk-other", "{\"profile\":\"standard\",\"units\":2}")
+                .addToData("standard", "3")
+                .build());
+
+        // the mock server does not check the resource version, so the conflict is expected explicitly
+        server.expect()
+                .put()
+                .withPath(String.format("/api/v1/namespaces/%s/configmaps/%s", client.getNamespace(),
+                        CapacityManager.FLEETSHARD_RESOURCES))
+                .andReturn(HttpURLConnection.HTTP_CONFLICT, new StatusBuilder().withCode(HttpURLConnection.HTTP_CONFLICT).build())
+                .once();
+
+        Counter conflicts = meterRegistry.get(CapacityManager.CAPACITY_FLUSH_CONFLICTS).counter();
+        double conflictsBefore = conflicts.count();
+        assertTrue(capacityManager.claimResources(ManagedKafka.getDummyInstance(2), "standard", dummyInstance).isEmpty());
+        assertEquals(1, conflicts.count() - conflictsBefore);
+
+        resourceMap = client.configMaps().withName(CapacityManager.FLEETSHARD_RESOURCES).get();
+        assertEquals("4", resourceMap.getData().get("standard"));
+        assertTrue(resourceMap.getData().containsKey("mk-other"));
+
+        assertEquals(10 - 4, capacityManager.buildCapacity(dummyInstance).get("standard").getRemainingUnits());
+    }
+
 }
@@ -0,0 +1,65 @@
+package org.bf2.operator.managers;
+
+import io.fabric8.kubernetes.client.utils.CachedSingleThreadScheduler;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DebouncedActionTest {
+
+    private final Timer delay = Timer.builder("delay").register(new SimpleMeterRegistry());
+    private final AtomicInteger executions = new AtomicInteger();
+    private final Semaphore executed = new Semaphore(0);
+
+    private DebouncedAction action(Duration quietPeriod, Duration maxDelay) {
+        return new DebouncedAction(() -> {
+            executions.incrementAndGet();
+            executed.release();
+        }, quietPeriod, maxDelay, new CachedSingleThreadScheduler(), delay);
+    }
+
+    @Test
+    void testBurstIsCoalesced() throws Exception {
+        DebouncedAction action = action(Duration.ofMillis(200), Duration.ofSeconds(10));
+
+        for (int i = 0; i < 100; i++) {
+            action.request();
+        }
+
+        assertTrue(executed.tryAcquire(5, TimeUnit.SECONDS));
+        assertFalse(executed.tryAcquire(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(1, delay.count());
+        assertTrue(delay.totalTime(TimeUnit.MILLISECONDS) >= 200);
+
+        // a later request is executed again
+        action.request();
+        assertTrue(executed.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testMaxDelay() throws Exception {
+        DebouncedAction action = action(Duration.ofMillis(500), Duration.ofMillis(300));
+
+        // never quiet, but the max delay forces an execution
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (System.nanoTime() < end) {
+            action.request();
+            Thread.sleep(20);
+        }
+
+        assertTrue(executions.get() >= 2);
+        assertTrue(delay.max(TimeUnit.MILLISECONDS) < 1000);
+    }
+
+}
@@ -10,6 +10,7 @@ import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.api.model.ServiceBuilder;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
 import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
 import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
 import io.fabric8.openshift.api.model.Route;
 import io.fabric8.openshift.api.model.RouteBuilder;
@@ -18,6 +19,7 @@ import io.fabric8.openshift.api.model.operator.v1.Config;
 import io.fabric8.openshift.api.model.operator.v1.IngressController;
 import io.fabric8.openshift.api.model.operator.v1.IngressControllerBuilder;
 import io.fabric8.openshift.client.OpenShiftClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusMock;
 import io.quarkus.test.junit.QuarkusTest;
@@ -44,6 +46,7 @@ import org.mockito.Mockito;
 
 import javax.inject.Inject;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -55,6 +58,7 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -82,6 +86,11 @@ class IngressControllerManagerTest {
     @Inject
     InformerManager informerManager;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    Map<String, Kafka> informedKafkas = Map.of();
+
     @Test
     void testIngressControllerCreationWithNoZones() {
         QuarkusMock.installMockForType(Mockito.mock(InformerManager.class), InformerManager.class);
@@ -108,6 +117,7 @@ class IngressControllerManagerTest {
             openShiftClient.resource(kafka).createOrReplace();
         });
         informerManager.createKafkaInformer();
+        informKafkas();
 
         ingressControllerManager.reconcileIngressControllers();
         // this is more than the number of nodes, but we're presuming node scaling is available
@@ -117,12 +127,14 @@ class IngressControllerManagerTest {
         var kafkas = openShiftClient.resources(Kafka.class).inNamespace("ingressTest");
         assertTrue(kafkas.withName("ingressTest0").delete());
         assertTrue(kafkas.withName("ingressTest1").delete());
+        informKafkas();
         ingressControllerManager.reconcileIngressControllers();
         checkAzReplicaCount(4);
 
         // remove two more kafkas - and we should reduce
         assertTrue(kafkas.withName("ingressTest2").delete());
         assertTrue(kafkas.withName("ingressTest3").delete());
+        informKafkas();
         ingressControllerManager.reconcileIngressControllers();
         checkAzReplicaCount(2);
     }
@@ -141,6 +153,7 @@ class IngressControllerManagerTest {
             openShiftClient.resource(kafka).createOrReplace();
         });
         informerManager.createKafkaInformer();
+        informKafkas();
 
         ingressControllerManager.reconcileIngressControllers();
         checkAzReplicaCount(3);
@@ -149,11 +162,29 @@ class IngressControllerManagerTest {
         var kafkas = openShiftClient.resources(Kafka.class).inNamespace("ingressTest");
         assertTrue(kafkas.withName("ingressTest0").delete());
         assertTrue(kafkas.withName("ingressTest1").delete());
+        informKafkas();
         ingressControllerManager.reconcileIngressControllers();
         checkAzReplicaCount(1);
         checkDefaultReplicaCount(2, "Expected 2 replicas because there are 12 nodes");
     }
 
+    /**
+     * The mock informers do not deliver events, so pass the kafka changes to the ingress demand
+     */
+    private void informKafkas() {
+        IngressDemand ingressDemand = ingressControllerManager.getIngressDemand();
+        Map<String, Kafka> current = informerManager.getKafkas()
+                .stream()
+                .collect(Collectors.toMap(Cache::metaNamespaceKeyFunc, Function.identity()));
+        informedKafkas.forEach((key, kafka) -> {
+            if (!current.containsKey(key)) {
+                ingressDemand.onDelete(kafka, false);
+            }
+        });
+        current.values().forEach(ingressDemand::onAdd);
+        informedKafkas = current;
+    }
+
     private void checkAzReplicaCount(int count) {
         List<IngressController> ingressControllers = openShiftClient.operator().ingressControllers().inNamespace(IngressControllerManager.INGRESS_OPERATOR_NAMESPACE).list().getItems();
         IngressController ic = ingressControllers.stream().filter(c -> !c.getMetadata().getName().equals("kas")).findFirst().get();
@@ -199,6 +230,7 @@ class IngressControllerManagerTest {
                 openShiftClient.resource(kafka).createOrReplace();
             });
             informerManager.createKafkaInformer();
+            informKafkas();
 
             ingressControllerManager.reconcileIngressControllers();
             checkAzReplicaCount(1);
@@ -223,6 +255,7 @@ class IngressControllerManagerTest {
         }
 
         informerManager.createKafkaInformer();
+        informKafkas();
 
         ingressControllerManager.reconcileIngressControllers();
 
@@ -552,12 +585,26 @@ class IngressControllerManagerTest {
         assertEquals("Internal", controller.getSpec().getEndpointPublishingStrategy().getLoadBalancer().getScope());
     }
 
+    @Test
+    void testRequestReconcile() {
+        double requested = meterRegistry.get(IngressControllerManager.INGRESSCONTROLLER_RECONCILE_REQUESTED).counter().count();
+        double executed = meterRegistry.get(IngressControllerManager.INGRESSCONTROLLER_RECONCILE_EXECUTED).counter().count();
+
+        ingressControllerManager.requestReconcile();
+
+        assertEquals(requested + 1, meterRegistry.get(IngressControllerManager.INGRESSCONTROLLER_RECONCILE_REQUESTED).counter().count());
+        await().atMost(Duration.ofSeconds(10)).until(() -> meterRegistry.get(IngressControllerManager.INGRESSCONTROLLER_RECONCILE_EXECUTED).counter().count() > executed);
+        assertTrue(meterRegistry.get(IngressControllerManager.INGRESSCONTROLLER_RECONCILE).timer().count() > 0);
+        assertTrue(meterRegistry.get(IngressControllerManager.INGRESSCONTROLLER_RECONCILE_DELAY).timer().count() > 0);
+    }
+
     @BeforeEach
     @AfterEach
     void cleanup() {
         ingressControllerManager.getRouteMatchLabels().clear();
         openShiftClient.resources(Node.class).delete();
         openShiftClient.resources(Kafka.class).inAnyNamespace().delete();
+        informKafkas();
         openShiftClient.resources(ManagedKafka.class).inAnyNamespace().delete();
         openShiftClient.resources(ManagedKafkaAgent.class).inAnyNamespace().delete();
         openShiftClient.resources(IngressController.class).inNamespace(IngressControllerManager.INGRESS_OPERATOR_NAMESPACE).delete();
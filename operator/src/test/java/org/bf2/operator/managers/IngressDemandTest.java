@@ -0,0 +1,144 @@
+package org.bf2.operator.managers;
+
+import io.strimzi.api.kafka.model.Kafka;
+import io.strimzi.api.kafka.model.KafkaBuilder;
+import io.strimzi.api.kafka.model.listener.arraylistener.GenericKafkaListener;
+import io.strimzi.api.kafka.model.listener.arraylistener.GenericKafkaListenerBuilder;
+import io.strimzi.api.kafka.model.listener.arraylistener.GenericKafkaListenerConfigurationBuilder;
+import io.strimzi.api.kafka.model.listener.arraylistener.KafkaListenerType;
+import org.bf2.operator.operands.AbstractKafkaCluster;
+import org.bf2.operator.operands.KafkaCluster;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IngressDemandTest {
+
+    private static final List<String> QUOTAS = List.of("1Mi", "10Mi", "50Mi", "100Mi", "300000", "1Gi");
+
+    private static Kafka kafka(String namespace, String name, int replicas, String produce, String fetch, Integer maxConnections) {
+        Map<String, Object> config = new HashMap<>();
+        if (produce != null) {
+            config.put("client.quota.callback.static.produce", produce);
+        }
+        if (fetch != null) {
+            config.put("client.quota.callback.static.fetch", fetch);
+        }
+        List<GenericKafkaListener> listeners = new ArrayList<>();
+        listeners.add(new GenericKafkaListenerBuilder()
+                .withName("sre")
+                .withPort(9096)
+                .withType(KafkaListenerType.INTERNAL)
+                .withConfiguration(new GenericKafkaListenerConfigurationBuilder().withMaxConnections(1000).build())
+                .build());
+        if (maxConnections != null) {
+            listeners.add(new GenericKafkaListenerBuilder()
+                    .withName(AbstractKafkaCluster.EXTERNAL_LISTENER_NAME)
+                    .withPort(9094)
+                    .withType(KafkaListenerType.ROUTE)
+                    .withConfiguration(new GenericKafkaListenerConfigurationBuilder().withMaxConnections(maxConnections).build())
+                    .build());
+        }
+        return new KafkaBuilder()
+                .withNewMetadata()
+                    .withNamespace(namespace)
+                    .withName(name)
+                .endMetadata()
+                .withNewSpec()
+                    .withNewKafka()
+                        .withReplicas(replicas)
+                        .withConfig(config)
+                        .withListeners(listeners)
+                    .endKafka()
+                .endSpec()
+                .build();
+    }
+
+    private static Kafka randomKafka(Random random, String namespace, String name) {
+        return kafka(namespace, name, random.nextInt(10),
+                QUOTAS.get(random.nextInt(QUOTAS.size())),
+                QUOTAS.get(random.nextInt(QUOTAS.size())),
+                random.nextBoolean() ? 1000 * random.nextInt(20) : null);
+    }
+
+    private static void assertSameStatistics(LongSummaryStatistics expected, LongSummaryStatistics actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getSum(), actual.getSum());
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+    }
+
+    /**
+     * Applies random adds, updates, resyncs and deletes, checking after each that the running totals
+     * are the same as a full recomputation over the remaining Kafkas
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 5, 8, 13, 21, 34, 55, 89})
+    void testIncrementalMatchesRecomputation(long seed) {
+        Random random = new Random(seed);
+        IngressDemand demand = new IngressDemand();
+        Map<String, Kafka> kafkas = new LinkedHashMap<>();
+
+        for (int i = 0; i < 500; i++) {
+            String namespace = "ns" + random.nextInt(3);
+            String name = "kafka" + random.nextInt(10);
+            String key = namespace + "/" + name;
+            Kafka previous = kafkas.get(key);
+            int op = random.nextInt(4);
+            if (op == 0 && previous != null) {
+                kafkas.remove(key);
+                demand.onDelete(previous, random.nextBoolean());
+            } else if (op == 1 && previous != null) {
+                // resync
+                demand.onUpdate(previous, previous);
+            } else {
+                Kafka kafka = randomKafka(random, namespace, name);
+                kafkas.put(key, kafka);
+                if (previous == null) {
+                    demand.onAdd(kafka);
+                } else {
+                    demand.onUpdate(previous, kafka);
+                }
+            }
+
+            List<Kafka> current = new ArrayList<>(kafkas.values());
+            assertEquals(current.size(), demand.size());
+            assertSameStatistics(IngressControllerManager.summarize(current, KafkaCluster::getProduceQuota, () -> null),
+                    demand.getIngress());
+            assertSameStatistics(IngressControllerManager.summarize(current, KafkaCluster::getFetchQuota, () -> null),
+                    demand.getEgress());
+            assertEquals(IngressDemand.connectionDemand(current), demand.getConnectionDemand());
+        }
+    }
+
+    @Test
+    void testConnectionDemand() {
+        assertEquals(18000, IngressDemand.connectionDemand(kafka("ns", "a", 3, "1Mi", "1Mi", 6000)));
+        assertEquals(0, IngressDemand.connectionDemand(kafka("ns", "a", 3, "1Mi", "1Mi", null)));
+    }
+
+    @Test
+    void testMissingQuota() {
+        IngressDemand demand = new IngressDemand();
+        Kafka kafka = kafka("ns", "a", 3, null, "1Mi", null);
+
+        demand.onAdd(kafka);
+        assertThrows(IllegalStateException.class, demand::getIngress);
+        assertEquals(3, demand.getEgress().getCount());
+
+        demand.onDelete(kafka, false);
+        assertEquals(0, demand.getIngress().getCount());
+    }
+
+}
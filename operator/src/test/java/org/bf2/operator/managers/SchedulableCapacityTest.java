@@ -0,0 +1,218 @@
+package org.bf2.operator.managers;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import org.bf2.operator.managers.SchedulableCapacity.Amount;
+import org.bf2.operator.managers.SchedulableCapacity.Demand;
+import org.bf2.operator.resources.v1alpha1.ManagedKafka;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SchedulableCapacityTest {
+
+    private static final double GI = 1024 * 1024 * 1024;
+
+    // 3 brokers of 2 cpu / 8Gi and 3 cpu / 6Gi of everything else
+    private static final Demand STANDARD = new Demand(3, new Amount(2, 8 * GI), new Amount(3, 6 * GI));
+
+    private static Node node(String name, String zone, String profile, String cpu, String memory) {
+        return new NodeBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .addToLabels(IngressControllerManager.TOPOLOGY_KEY, zone)
+                    .addToLabels(profile == null ? Map.of() : Map.of(ManagedKafka.PROFILE_TYPE, profile))
+                .endMetadata()
+                .withNewStatus()
+                    .addToAllocatable("cpu", new Quantity(cpu))
+                    .addToAllocatable("memory", new Quantity(memory))
+                .endStatus()
+                .build();
+    }
+
+    private static Pod pod(String nodeName, String phase, String cpu, String memory) {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName("pod")
+                .endMetadata()
+                .withNewSpec()
+                    .withNodeName(nodeName)
+                    .addNewContainer()
+                        .withNewResources()
+                            .addToRequests("cpu", new Quantity(cpu))
+                            .addToRequests("memory", new Quantity(memory))
+                        .endResources()
+                    .endContainer()
+                    .addNewContainer()
+                        .withNewResources()
+                            .addToRequests("cpu", new Quantity("500m"))
+                        .endResources()
+                    .endContainer()
+                .endSpec()
+                .withNewStatus()
+                    .withPhase(phase)
+                .endStatus()
+                .build();
+    }
+
+    private static List<Node> nodes(String profile, int perZone, String cpu, String memory) {
+        List<Node> nodes = new ArrayList<>();
+        for (String zone : List.of("a", "b", "c")) {
+            for (int i = 0; i < perZone; i++) {
+                nodes.add(node(zone + i, zone, profile, cpu, memory));
+            }
+        }
+        return nodes;
+    }
+
+    @Test
+    void testPodRequests() {
+        Amount amount = SchedulableCapacity.requests(pod("a0", "Running", "1500m", "2Gi"));
+
+        assertEquals(2, amount.cpu, 0.0001);
+        assertEquals(2 * GI, amount.memory, 1);
+    }
+
+    @Test
+    void testInitContainerRequests() {
+        Pod pod = new PodBuilder(pod("a0", "Running", "1", "1Gi"))
+                .editSpec()
+                    .addNewInitContainer()
+                        .withNewResources()
+                            .addToRequests("cpu", new Quantity("3"))
+                            .addToRequests("memory", new Quantity("512Mi"))
+                        .endResources()
+                    .endInitContainer()
+                    .addToOverhead("cpu", new Quantity("250m"))
+                .endSpec()
+                .build();
+
+        // the init container has the larger cpu request, the containers the larger memory request
+        Amount amount = SchedulableCapacity.requests(pod);
+        assertEquals(3.25, amount.cpu, 0.0001);
+        assertEquals(GI, amount.memory, 1);
+
+        // zone a has 4.75 cpu left, rather than the 6.5 the containers alone would leave
+        assertEquals(1, new SchedulableCapacity(nodes(null, 1, "8", "32Gi"), List.of(pod), "standard").getRemaining(STANDARD));
+    }
+
+    @Test
+    void testEmptyNodes() {
+        // each zone has 2 x 8 cpu / 32Gi, so 8 brokers by node and 16 / 3 = 5 instances by cpu
+        SchedulableCapacity capacity = new SchedulableCapacity(nodes(null, 2, "8", "32Gi"), List.of(), "standard");
+
+        assertEquals(5, capacity.getMax(STANDARD));
+        assertEquals(5, capacity.getRemaining(STANDARD));
+        assertEquals(0, new SchedulableCapacity(List.of(), List.of(), "standard").getRemaining(STANDARD));
+    }
+
+    @Test
+    void testScheduledPods() {
+        List<Node> nodes = nodes(null, 1, "8", "32Gi");
+        List<Pod> pods = List.of(
+                pod("a0", "Running", "5500m", "1Gi"),
+                // completed and unscheduled pods hold nothing
+                pod("b0", "Succeeded", "8", "32Gi"),
+                pod(null, "Pending", "8", "32Gi"),
+                // pods on other nodes are ignored
+                pod("master", "Running", "8", "32Gi"));
+
+        SchedulableCapacity capacity = new SchedulableCapacity(nodes, pods, "standard");
+
+        // zone a has 2 cpu left, which is enough for a broker but not for its share of the rest
+        assertEquals(2, capacity.getMax(STANDARD));
+        assertEquals(0, capacity.getRemaining(STANDARD));
+    }
+
+    @Test
+    void testFragmentation() {
+        // 3 cpu remaining on each of 4 nodes per zone, plenty in total but only 1 broker per node
+        List<Node> nodes = nodes(null, 4, "3", "64Gi");
+        Demand large = new Demand(6, new Amount(2, 8 * GI), Amount.ZERO);
+
+        SchedulableCapacity capacity = new SchedulableCapacity(nodes, List.of(), "standard");
+
+        assertEquals(2, capacity.getRemaining(large));
+    }
+
+    @Test
+    void testProfileLabels() {
+        List<Node> nodes = new ArrayList<>(nodes("standard", 1, "8", "32Gi"));
+        nodes.addAll(nodes("developer", 1, "16", "64Gi"));
+        nodes.add(new NodeBuilder(node("d0", "a", "standard", "8", "32Gi")).withNewSpec().withUnschedulable(true).endSpec().build());
+
+        assertEquals(2, new SchedulableCapacity(nodes, List.of(), "standard").getRemaining(STANDARD));
+        assertEquals(5, new SchedulableCapacity(nodes, List.of(), "developer").getRemaining(STANDARD));
+    }
+
+    @Test
+    void testScalableNodes() {
+        List<Node> nodes = nodes(null, 1, "8", "32Gi");
+        List<Pod> pods = List.of(pod("a0", "Running", "5500m", "1Gi"));
+
+        // zone a has no room on its node, but each zone may have another
+        SchedulableCapacity capacity = new SchedulableCapacity(nodes, pods, "standard", 6);
+        assertEquals(5, capacity.getMax(STANDARD));
+        assertEquals(3, capacity.getRemaining(STANDARD));
+
+        // a single node is added to the first zone with the fewest nodes
+        assertEquals(2, new SchedulableCapacity(nodes, pods, "standard", 4).getRemaining(STANDARD));
+
+        // already at or past the max nodes
+        assertEquals(0, new SchedulableCapacity(nodes, pods, "standard", 2).getRemaining(STANDARD));
+        // the size of the nodes is not known
+        assertEquals(0, new SchedulableCapacity(List.of(), List.of(), "standard", 6).getRemaining(STANDARD));
+    }
+
+    @Test
+    void testReserve() {
+        SchedulableCapacity capacity = new SchedulableCapacity(nodes(null, 2, "8", "32Gi"), List.of(), "standard");
+
+        capacity.reserve(STANDARD);
+        capacity.reserve(STANDARD);
+
+        assertEquals(5, capacity.getMax(STANDARD));
+        assertEquals(3, capacity.getRemaining(STANDARD));
+    }
+
+    @Test
+    void testTrimPod() {
+        Pod pod = InformerManager.trimPod(new PodBuilder(pod("a0", "Running", "1", "1Gi"))
+                .editMetadata()
+                    .withNamespace("test")
+                    .addToLabels("app", "test")
+                .endMetadata()
+                .editSpec()
+                    .addNewContainer()
+                        .withImage("image")
+                    .endContainer()
+                    .addNewInitContainer()
+                        .withImage("image")
+                        .withNewResources()
+                            .addToRequests("cpu", new Quantity("4"))
+                        .endResources()
+                    .endInitContainer()
+                    .addToOverhead("memory", new Quantity("1Gi"))
+                .endSpec()
+                .build());
+
+        assertEquals("test", pod.getMetadata().getNamespace());
+        assertNull(pod.getMetadata().getLabels());
+        assertEquals("a0", pod.getSpec().getNodeName());
+        assertEquals("Running", pod.getStatus().getPhase());
+        assertEquals(3, pod.getSpec().getContainers().size());
+        assertNull(pod.getSpec().getContainers().get(2).getImage());
+        assertNull(pod.getSpec().getInitContainers().get(0).getImage());
+        assertEquals(4, SchedulableCapacity.requests(pod).cpu, 0.0001);
+        assertEquals(2 * GI, SchedulableCapacity.requests(pod).memory, 1);
+    }
+
+}
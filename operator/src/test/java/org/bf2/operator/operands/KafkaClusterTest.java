@@ -5,9 +5,11 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.Affinity;
+import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.LocalObjectReferenceBuilder;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
@@ -83,7 +85,9 @@ import static org.bf2.operator.utils.ManagedKafkaUtils.exampleManagedKafka;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -639,13 +643,13 @@ class KafkaClusterTest {
         InformerManager informerManager = Mockito.mock(InformerManager.class);
 
         QuarkusMock.installMockForType(informerManager, InformerManager.class);
-        Mockito.when(informerManager.getPvcsInNamespace(Mockito.anyString())).thenReturn(List.of());
+        Mockito.when(informerManager.getLocalKafkaPvcs(Mockito.anyString(), Mockito.anyString())).thenReturn(List.of());
 
         // there's no pvcs, should be 0
         assertEquals("0", kafkaCluster.calculateRetentionSize(mk).getAmount());
 
         PersistentVolumeClaim pvc = new PersistentVolumeClaimBuilder().withNewStatus().addToCapacity("storage", Quantity.parse("361Gi")).endStatus().build();
-        Mockito.when(informerManager.getPvcsInNamespace(Mockito.anyString())).thenReturn(List.of(pvc, pvc, pvc));
+        Mockito.when(informerManager.getLocalKafkaPvcs(Mockito.anyString(), Mockito.anyString())).thenReturn(List.of(pvc, pvc, pvc));
 
         // should be the sum in Gi, less the padding
         assertEquals("1000", kafkaCluster.calculateRetentionSize(mk).getAmount());
@@ -760,6 +764,7 @@ class KafkaClusterTest {
                 .thenReturn(kafka.build());
         QuarkusMock.installMockForType(informer, InformerManager.class);
 
+        List<Pod> kafkaPods = new ArrayList<>();
         for (int i = 0; i < kafkaPodCount; i++) {
             PodBuilder pod = new PodBuilder()
                     .withNewMetadata()
@@ -781,8 +786,10 @@ class KafkaClusterTest {
                     .endMetadata();
             }
 
-            client.pods().inNamespace(ns).create(pod.build());
+            kafkaPods.add(pod.build());
         }
+        Mockito.when(informer.getLocalKafkaPods(ns, Map.of("strimzi.io/name", name + "-kafka")))
+                .thenReturn(kafkaPods);
 
         OperandReadiness readiness = this.kafkaCluster.getReadiness(mk);
         assertEquals(expStatus, readiness.getStatus());
@@ -960,6 +967,78 @@ class KafkaClusterTest {
             });
     }
 
+    @Test
+    void testConfigMapTemplateCopies() {
+        ManagedKafka mk = exampleManagedKafka("60Gi");
+        String name = KafkaCluster.kafkaMetricsConfigMapName(mk);
+
+        ConfigMap configMap = kafkaCluster.configMapFrom(mk, name);
+        ConfigMap other = kafkaCluster.configMapFrom(mk, name);
+        assertEquals(configMap, other);
+
+        // changes to a copy must not affect the cached template
+        configMap.getData().clear();
+        configMap.getMetadata().getAnnotations().clear();
+        ConfigMap parsed = kafkaCluster.loadConfigMapTemplate(name.substring(mk.getMetadata().getName().length() + 1));
+        assertEquals(parsed.getData(), kafkaCluster.configMapFrom(mk, name).getData());
+        assertEquals(parsed.getMetadata().getAnnotations(), kafkaCluster.configMapFrom(mk, name).getMetadata().getAnnotations());
+    }
+
+    /**
+     * The templates are parsed once, and each ConfigMap is a copy of its cached template
+     */
+    @Test
+    void testConfigMapTemplateCached() {
+        ManagedKafka mk = exampleManagedKafka("60Gi");
+        List<String> names = List.of(KafkaCluster.kafkaMetricsConfigMapName(mk),
+                KafkaCluster.zookeeperMetricsConfigMapName(mk),
+                KafkaCluster.cruiseControlMetricsConfigMapName(mk),
+                KafkaCluster.kafkaLoggingConfigMapName(mk),
+                KafkaCluster.kafkaExporterLoggingConfigMapName(mk),
+                KafkaCluster.zookeeperLoggingConfigMapName(mk),
+                KafkaCluster.cruiseControlLoggingConfigMapName(mk));
+
+        for (String name : names) {
+            ConfigMap template = kafkaCluster.configMapTemplate(mk, name);
+            assertSame(template, kafkaCluster.configMapTemplate(mk, name));
+
+            ConfigMap parsed = kafkaCluster.loadConfigMapTemplate(name.substring(mk.getMetadata().getName().length() + 1));
+            assertEquals(parsed.getMetadata().getAnnotations(), template.getMetadata().getAnnotations());
+
+            ConfigMap configMap = kafkaCluster.configMapFrom(mk, name);
+            assertNotSame(template, configMap);
+            assertEquals(name, configMap.getMetadata().getName());
+            assertEquals(template.getData(), configMap.getData());
+            assertEquals(template.getMetadata().getAnnotations(), configMap.getMetadata().getAnnotations());
+            assertSame(template, kafkaCluster.configMapTemplate(mk, name));
+        }
+    }
+
+    @Test
+    void testKafkaFromReuse() {
+        ManagedKafka mk = exampleManagedKafka("60Gi");
+        mk.getMetadata().setGeneration(1L);
+
+        Kafka kafka = kafkaCluster.kafkaFrom(mk, null);
+        assertSame(kafka, kafkaCluster.kafkaFrom(mk, null));
+        assertEquals(kafka, kafkaCluster.kafkaFrom(new ManagedKafkaBuilder(mk).build(), null));
+
+        // a new generation is built again
+        mk.getMetadata().setGeneration(2L);
+        Kafka next = kafkaCluster.kafkaFrom(mk, null);
+        assertNotSame(kafka, next);
+        assertEquals(kafka, next);
+
+        // as are new annotations
+        mk.getMetadata().setAnnotations(Map.of("x", "y"));
+        assertNotSame(next, kafkaCluster.kafkaFrom(mk, null));
+
+        // suspended instances are not reused
+        mk.getMetadata().setLabels(Map.of(ManagedKafka.SUSPENDED_INSTANCE, "true"));
+        Kafka suspended = kafkaCluster.kafkaFrom(mk, null);
+        assertNotSame(suspended, kafkaCluster.kafkaFrom(mk, null));
+    }
+
     StatefulSet createStatefulSet(String name) {
         return new StatefulSetBuilder()
                 .withNewMetadata()
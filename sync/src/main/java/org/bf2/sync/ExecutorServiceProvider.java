@@ -17,6 +17,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @ApplicationScoped
 public class ExecutorServiceProvider implements UncaughtExceptionHandler {
@@ -54,6 +55,22 @@ public class ExecutorServiceProvider implements UncaughtExceptionHandler {
         this.meterRegistry = meterRegistry;
     }
 
+    /**
+     * Create a fixed size pool for work that limits its own concurrency to the number of threads.
+     * Unlike the shared pool its tasks are never discarded, nor queued behind unrelated tasks, so a
+     * task can only be rejected once the pool is shut down.
+     */
+    public ExecutorService newFixedThreadPool(String name, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService result = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            t.setUncaughtExceptionHandler(this);
+            return t;
+        });
+        return ExecutorServiceMetrics.monitor(meterRegistry, result, name);
+    }
+
     @Produces
     public ExecutorService executorService() {
         return executor;
@@ -14,6 +14,7 @@ import io.fabric8.kubernetes.client.utils.Serialization;
 import io.fabric8.zjsonpatch.JsonDiff;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.scheduler.Scheduled;
 import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
 import org.bf2.common.ConditionUtils;
@@ -29,29 +30,32 @@ import org.bf2.operator.resources.v1alpha1.ManagedKafkaSpec;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaStatusBuilder;
 import org.bf2.sync.controlplane.ControlPlane;
 import org.bf2.sync.informer.LocalLookup;
-import org.eclipse.microprofile.context.ManagedExecutor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import org.jboss.logging.NDC;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import java.net.HttpURLConnection;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 /**
  * Has the responsibility of processing the remote list of ManagedKafka from the
  * control plane.
  *
- * Actual modifications to the kube ManagedKafka are added to a simple work
- * queue, but you could envision using a more involved approach
- * https://github.com/kubernetes/client-go/tree/master/examples/workqueue -
- * where tasks could be superseded, rate limited, etc.
+ * Actual modifications to the kube ManagedKafka are added to a {@link WorkQueue}
+ * keyed by the remote and local identity, so that pending work is superseded,
+ * processing is serialized per key, and failures are retried with backoff.
  */
 @ApplicationScoped
 public class ManagedKafkaSync {
@@ -72,7 +76,7 @@ public class ManagedKafkaSync {
     KubernetesClient kubeClient;
 
     @Inject
-    ExecutorService executorService;
+    ExecutorServiceProvider executorServiceProvider;
 
     @Inject
     protected SecretManager secretManager;
@@ -80,77 +84,165 @@ public class ManagedKafkaSync {
     @Inject
     SystemTerminator systemTerminator;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "sync.queue.workers", defaultValue = "4")
+    int workers;
+
+    @ConfigProperty(name = "sync.queue.backoff.initial", defaultValue = "1s")
+    Duration initialBackoff;
+
+    @ConfigProperty(name = "sync.queue.backoff.max", defaultValue = "5m")
+    Duration maxBackoff;
+
+    private ExecutorService workQueueExecutor;
+    private WorkQueue<ReconcileKey> workQueue;
+
+    /**
+     * The unit of work - the pair of remote and local identifiers
+     */
+    static final class ReconcileKey {
+        final String remoteId;
+        final String localMetaNamespaceKey;
+
+        ReconcileKey(String remoteId, String localMetaNamespaceKey) {
+            this.remoteId = remoteId;
+            this.localMetaNamespaceKey = localMetaNamespaceKey;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(remoteId, localMetaNamespaceKey);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ReconcileKey)) {
+                return false;
+            }
+            ReconcileKey other = (ReconcileKey) obj;
+            return Objects.equals(remoteId, other.remoteId)
+                    && Objects.equals(localMetaNamespaceKey, other.localMetaNamespaceKey);
+        }
+
+        @Override
+        public String toString() {
+            return remoteId + " " + localMetaNamespaceKey;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        // the workers are long lived, so they have their own threads rather than occupying the shared pool
+        workQueueExecutor = executorServiceProvider.newFixedThreadPool("sync.workqueue", workers);
+        workQueue = new WorkQueue<>("ManagedKafka", workQueueExecutor, workers, initialBackoff, maxBackoff, meterRegistry,
+                key -> reconcile(key.remoteId, key.localMetaNamespaceKey));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workQueue.shutdown();
+        workQueueExecutor.shutdownNow();
+    }
+
     /**
      * Update the local state based upon the remote ManagedKafkas
-     * The strategy here is to take a pass over the list and find any deferred work
-     * Then execute that deferred work using the {@link ManagedExecutor} but with
+     * The strategy here is to take a pass over the list, as it is streamed, and find any deferred work
+     * Then execute that deferred work using the {@link WorkQueue} but with
      * a refresh of the state to ensure we're still acting appropriately.
+     * If the remote list is unchanged since the last poll, there is nothing to do
+     * - drift in the local state is picked up by the periodic full list.
      */
     @Timed(value = "sync.poll", extraTags = {"resource", "ManagedKafka"}, description = "The time spent processing polling calls")
     @Counted(value = "sync.poll", extraTags = {"resource", "ManagedKafka"}, description = "The number of polling calls")
     public void syncKafkaClusters() {
-        Map<String, ManagedKafka> remotes = new HashMap<>();
-
-        for (ManagedKafka remoteManagedKafka : controlPlane.getKafkaClusters()) {
-            // these are basically assertions - there's not expected to fail in a real environment
-            Objects.requireNonNull(remoteManagedKafka.getId());
-            Objects.requireNonNull(remoteManagedKafka.getMetadata().getNamespace());
-
-            remotes.put(ControlPlane.managedKafkaKey(remoteManagedKafka), remoteManagedKafka);
-            ManagedKafkaSpec remoteSpec = remoteManagedKafka.getSpec();
-            Objects.requireNonNull(remoteSpec);
-
-            String localKey = Cache.namespaceKeyFunc(remoteManagedKafka.getMetadata().getNamespace(), remoteManagedKafka.getMetadata().getName());
-            ManagedKafka existing = lookup.getLocalManagedKafka(localKey);
-
-            // take action based upon differences
-            // this is really just seeing if an instance needs created and the delete flag
-            // there are no other fields to reconcile - but you could envision updating
-            // component versions etc. later
-
-            if (existing == null) {
-                if (!remoteSpec.isDeleted()) {
-                    reconcileAsync(ControlPlane.managedKafkaKey(remoteManagedKafka), localKey);
-                } else if (isConsistent(remoteManagedKafka)) {
-                    log.warnf("ManagedKafka %s no longer exists, sending the control plane a dummy deleted status", Cache.metaNamespaceKeyFunc(remoteManagedKafka));
-                    // we've successfully removed locally, but control plane is not aware
-                    // we need to send another status update to let them know
-
-                    ManagedKafkaStatusBuilder statusBuilder = new ManagedKafkaStatusBuilder();
-                    statusBuilder.withConditions(ConditionUtils.buildCondition(Type.Ready, Status.False).reason(Reason.Deleted));
-                    // fire and forget the async call - if it fails, we'll retry on the next poll
-                    controlPlane.updateKafkaClusterStatus(()->{return Map.of(remoteManagedKafka.getId(), statusBuilder.build());});
-                }
-            } else {
-                final String localNamespace = existing.getMetadata().getNamespace();
-                final String managedKafkaId = existing.getMetadata().getAnnotations() == null ? null : existing.getMetadata().getAnnotations().get(MANAGEDKAFKA_ID_LABEL);
-                Namespace n = kubeClient.namespaces().withName(localNamespace).get();
-                if (n != null) {
-                    String namespaceLabel = Optional.ofNullable(n.getMetadata().getLabels()).map(m -> m.get(MANAGEDKAFKA_ID_NAMESPACE_LABEL)).orElse("");
-                    if (managedKafkaId != null && !namespaceLabel.equals(managedKafkaId)) {
-                        kubeClient.namespaces().withName(localNamespace).edit(namespace -> new NamespaceBuilder(namespace)
-                                .editMetadata()
-                                .addToLabels(MANAGEDKAFKA_ID_NAMESPACE_LABEL, managedKafkaId)
-                                .endMetadata()
-                                .build());
-                    }
-                }
+        Set<String> remoteKeys = new HashSet<>();
+        try {
+            if (!controlPlane.getKafkaClustersIfChanged(remote -> syncKafkaCluster(remote, remoteKeys))) {
+                log.debug("Control plane managed kafkas are unchanged");
+                return;
+            }
+            syncRemovals(remoteKeys);
+        } catch (RuntimeException e) {
+            // make sure the list is processed again on the next poll
+            controlPlane.resetKafkaClustersRevision();
+            throw e;
+        }
+    }
 
-                if (changed(remoteManagedKafka, existing)) {
-                    reconcileAsync(ControlPlane.managedKafkaKey(remoteManagedKafka), localKey);
+    /**
+     * Process a single remote ManagedKafka as it is read from the control plane
+     * @param remoteKeys collects the {@link ControlPlane#managedKafkaKey(ManagedKafka)} of all remotes processed
+     */
+    void syncKafkaCluster(ManagedKafka remoteManagedKafka, Set<String> remoteKeys) {
+        // these are basically assertions - there's not expected to fail in a real environment
+        Objects.requireNonNull(remoteManagedKafka.getId());
+        Objects.requireNonNull(remoteManagedKafka.getMetadata().getNamespace());
+
+        remoteKeys.add(ControlPlane.managedKafkaKey(remoteManagedKafka));
+        ManagedKafkaSpec remoteSpec = remoteManagedKafka.getSpec();
+        Objects.requireNonNull(remoteSpec);
+
+        String localKey = Cache.namespaceKeyFunc(remoteManagedKafka.getMetadata().getNamespace(), remoteManagedKafka.getMetadata().getName());
+        ManagedKafka existing = lookup.getLocalManagedKafka(localKey);
+
+        // take action based upon differences
+        // this is really just seeing if an instance needs created and the delete flag
+        // there are no other fields to reconcile - but you could envision updating
+        // component versions etc. later
+
+        if (existing == null) {
+            if (!remoteSpec.isDeleted()) {
+                reconcileAsync(ControlPlane.managedKafkaKey(remoteManagedKafka), localKey);
+            } else if (isConsistent(remoteManagedKafka)) {
+                log.warnf("ManagedKafka %s no longer exists, sending the control plane a dummy deleted status", Cache.metaNamespaceKeyFunc(remoteManagedKafka));
+                // we've successfully removed locally, but control plane is not aware
+                // we need to send another status update to let them know
+
+                ManagedKafkaStatusBuilder statusBuilder = new ManagedKafkaStatusBuilder();
+                statusBuilder.withConditions(ConditionUtils.buildCondition(Type.Ready, Status.False).reason(Reason.Deleted));
+                // fire and forget the async call - if it fails, we'll retry on the next poll
+                controlPlane.updateKafkaClusterStatus(remoteManagedKafka.getId(), statusBuilder.build());
+            }
+        } else {
+            final String localNamespace = existing.getMetadata().getNamespace();
+            final String managedKafkaId = existing.getMetadata().getAnnotations() == null ? null : existing.getMetadata().getAnnotations().get(MANAGEDKAFKA_ID_LABEL);
+            Namespace n = lookup.getLocalNamespace(localNamespace);
+            if (n == null) {
+                // only namespaces with the managed-by label are cached, others still need the id label
+                n = kubeClient.namespaces().withName(localNamespace).get();
+            }
+            if (n != null) {
+                String namespaceLabel = Optional.ofNullable(n.getMetadata().getLabels()).map(m -> m.get(MANAGEDKAFKA_ID_NAMESPACE_LABEL)).orElse("");
+                if (managedKafkaId != null && !namespaceLabel.equals(managedKafkaId)) {
+                    kubeClient.namespaces().withName(localNamespace).edit(namespace -> new NamespaceBuilder(namespace)
+                            .editMetadata()
+                            .addToLabels(MANAGEDKAFKA_ID_NAMESPACE_LABEL, managedKafkaId)
+                            .endMetadata()
+                            .build());
                 }
             }
+
+            if (changed(remoteManagedKafka, existing)) {
+                reconcileAsync(ControlPlane.managedKafkaKey(remoteManagedKafka), localKey);
+            }
         }
+    }
+
+    /**
+     * Once the full remote list has been processed, remove anything that is no longer present
+     */
+    void syncRemovals(Set<String> remoteKeys) {
+        secretManager.retainFingerprints(remoteKeys);
 
-        // process final removals
         for (ManagedKafka local : lookup.getLocalManagedKafkas()) {
-            if (remotes.get(ControlPlane.managedKafkaKey(local)) != null || !deleteAllowed(local)) {
+            if (remoteKeys.contains(ControlPlane.managedKafkaKey(local)) || !deleteAllowed(local)) {
                 continue;
             }
 
             reconcileAsync(null, Cache.metaNamespaceKeyFunc(local));
         }
-
     }
 
     boolean deleteAllowed(ManagedKafka local) {
@@ -179,12 +271,15 @@ public class ManagedKafkaSync {
             log.warnf("Ignoring ManagedKafka %s that wants to come back to life", Cache.metaNamespaceKeyFunc(existing));
             return false;
         }
+        if (secretManager.isKnownUnchanged(remote, existing)) {
+            return false;
+        }
         if (secretManager.isMasterSecretChanged(remote, existing)) {
             log.debugf("Remote master secret data changed");
             return true;
         }
 
-        ManagedKafka remoteCopy = secretManager.removeSecretsFromManagedKafka(remote);
+        ManagedKafka remoteCopy = secretManager.getRemoteWithoutSecrets(remote);
 
         if (!remoteCopy.getSpec().equals(existing.getSpec())) {
             logChange("Remote spec changed: %s", remoteCopy.getSpec(), existing.getSpec());
@@ -205,6 +300,7 @@ public class ManagedKafkaSync {
             return true;
         }
 
+        secretManager.markUnchanged(remote, existing);
         return false;
     }
 
@@ -223,9 +319,7 @@ public class ManagedKafkaSync {
      * @param localMetaNamespaceKey - obtained from {@link Cache#namespaceKeyFunc(String, String)}
      */
     void reconcileAsync(String remoteId, String localMetaNamespaceKey) {
-        executorService.execute(() -> {
-            reconcile(remoteId, localMetaNamespaceKey);
-        });
+        workQueue.add(new ReconcileKey(remoteId, localMetaNamespaceKey));
     }
 
     /**
@@ -305,7 +399,10 @@ public class ManagedKafkaSync {
 
         client.delete(local.getMetadata().getNamespace(), local.getMetadata().getName());
 
-        kubeClient.namespaces().withName(local.getMetadata().getNamespace()).delete();
+        Namespace namespace = lookup.getLocalNamespace(local.getMetadata().getNamespace());
+        if (namespace == null || namespace.getMetadata().getDeletionTimestamp() == null) {
+            kubeClient.namespaces().withName(local.getMetadata().getNamespace()).delete();
+        }
 
         // only remove the local after we're fully cleaned up, so that
         // we'll keep retrying if there is a failure
@@ -318,15 +415,21 @@ public class ManagedKafkaSync {
         final String remoteNamespace = remote.getMetadata().getNamespace();
         final String remoteManagedKafkaId = remote.getMetadata().getAnnotations() == null ? null : remote.getMetadata().getAnnotations().get(MANAGEDKAFKA_ID_LABEL);
 
-        kubeClient.namespaces().createOrReplace(
-                new NamespaceBuilder()
-                        .withNewMetadata()
-                            .withName(remoteNamespace)
-                            .withLabels(OperandUtils.getDefaultLabels())
-                            .addToLabels("observability-operator/scrape-logging", "true")
-                            .addToLabels(MANAGEDKAFKA_ID_NAMESPACE_LABEL, remoteManagedKafkaId)
-                        .endMetadata()
-                        .build());
+        Namespace namespace = new NamespaceBuilder()
+                .withNewMetadata()
+                    .withName(remoteNamespace)
+                    .withLabels(OperandUtils.getDefaultLabels())
+                    .addToLabels("observability-operator/scrape-logging", "true")
+                    .addToLabels(MANAGEDKAFKA_ID_NAMESPACE_LABEL, remoteManagedKafkaId)
+                .endMetadata()
+                .build();
+
+        // a retried create will usually find the namespace already in place
+        Namespace existingNamespace = lookup.getLocalNamespace(remoteNamespace);
+        if (existingNamespace == null || existingNamespace.getMetadata().getDeletionTimestamp() != null
+                || !existingNamespace.getMetadata().getLabels().entrySet().containsAll(namespace.getMetadata().getLabels().entrySet())) {
+            kubeClient.namespaces().createOrReplace(namespace);
+        }
 
         //Creating the master Secrets
        Secret secret = secretManager.buildSecret(remote);
@@ -371,9 +474,12 @@ public class ManagedKafkaSync {
 
     @Scheduled(every = "{poll.interval}", delayed = "{poll.delay}", concurrentExecution = ConcurrentExecution.SKIP)
     void pollKafkaClusters() {
+        if (!lookup.isSynced()) {
+            // otherwise existing local instances would appear to be missing
+            log.debug("Informers are not yet synced, skipping the poll for control plane managed kafkas");
+            return;
+        }
         log.debug("Polling for control plane managed kafkas");
-        // TODO: this is based upon a full poll - eventually this could be
-        // based upon a delta revision / timestmap to get a smaller list
         syncKafkaClusters();
     }
 }
@@ -10,6 +10,7 @@ import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaBuilder;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaSpecBuilder;
 import org.bf2.operator.resources.v1alpha1.ServiceAccount;
+import org.bf2.sync.controlplane.ControlPlane;
 import org.bf2.sync.informer.InformerManager;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -24,6 +25,8 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -42,6 +45,33 @@ public class SecretManager {
     @Inject
     InformerManager informerManager;
 
+    @Inject
+    ControlPlane controlPlane;
+
+    /**
+     * The master secret digest and secret free copy of a remote ManagedKafka, which are
+     * reused for as long as the remote content is unchanged
+     */
+    static final class RemoteFingerprint {
+        final ManagedKafka remote;
+        /* from ControlPlane.getContentDigest, may be null */
+        final String contentDigest;
+        final String masterSecretDigest;
+        final ManagedKafka withoutSecrets;
+        /* the resourceVersion of the last local ManagedKafka found to be unchanged with respect to the remote */
+        volatile String unchangedLocalVersion;
+
+        RemoteFingerprint(ManagedKafka remote, String contentDigest, String masterSecretDigest, ManagedKafka withoutSecrets) {
+            this.remote = remote;
+            this.contentDigest = contentDigest;
+            this.masterSecretDigest = masterSecretDigest;
+            this.withoutSecrets = withoutSecrets;
+        }
+    }
+
+    /* keyed by ControlPlane.managedKafkaKey */
+    private final ConcurrentHashMap<String, RemoteFingerprint> fingerprints = new ConcurrentHashMap<>();
+
     public static String kafkaClusterNamespace(ManagedKafka managedKafka) {
         return managedKafka.getMetadata().getNamespace();
     }
@@ -58,10 +88,62 @@ public class SecretManager {
 
     public boolean isMasterSecretChanged(ManagedKafka remote, ManagedKafka local){
         String localDigest = local.getMetadata().getAnnotations().get(Annotations.MASTER_SECRET_DIGEST);
-        String remoteDigest = buildDigest(buildSecretData(remote));
+        String remoteDigest = fingerprint(remote).masterSecretDigest;
         return !remoteDigest.equals(localDigest);
     }
 
+    /**
+     * Get a copy of the remote ManagedKafka with the secrets removed.  Unlike {@link #removeSecretsFromManagedKafka(ManagedKafka)}
+     * the result is shared between calls and must not be modified.
+     */
+    public ManagedKafka getRemoteWithoutSecrets(ManagedKafka remote) {
+        return fingerprint(remote).withoutSecrets;
+    }
+
+    /**
+     * @return true if the local ManagedKafka, at its current resourceVersion, was already found to be
+     * unchanged with respect to the same remote content
+     */
+    public boolean isKnownUnchanged(ManagedKafka remote, ManagedKafka local) {
+        String localVersion = local.getMetadata().getResourceVersion();
+        return localVersion != null && localVersion.equals(fingerprint(remote).unchangedLocalVersion);
+    }
+
+    /**
+     * Record that the local ManagedKafka, at its current resourceVersion, is unchanged with respect to the remote
+     */
+    public void markUnchanged(ManagedKafka remote, ManagedKafka local) {
+        fingerprint(remote).unchangedLocalVersion = local.getMetadata().getResourceVersion();
+    }
+
+    /**
+     * Discard the fingerprints for anything no longer present remotely
+     * @param remoteKeys obtained from {@link ControlPlane#managedKafkaKey(ManagedKafka)}
+     */
+    public void retainFingerprints(Set<String> remoteKeys) {
+        fingerprints.keySet().retainAll(remoteKeys);
+    }
+
+    RemoteFingerprint fingerprint(ManagedKafka remote) {
+        String key = ControlPlane.managedKafkaKey(remote);
+        RemoteFingerprint fingerprint = fingerprints.get(key);
+        if (fingerprint != null && fingerprint.remote == remote) {
+            return fingerprint;
+        }
+        String contentDigest = controlPlane.getContentDigest(remote);
+        if (fingerprint != null && contentDigest != null && contentDigest.equals(fingerprint.contentDigest)) {
+            // a new poll result with the same content - switch to the new instance so that later checks are by identity
+            RemoteFingerprint result = new RemoteFingerprint(remote, contentDigest, fingerprint.masterSecretDigest, fingerprint.withoutSecrets);
+            result.unchangedLocalVersion = fingerprint.unchangedLocalVersion;
+            fingerprints.put(key, result);
+            return result;
+        }
+        RemoteFingerprint result = new RemoteFingerprint(remote, contentDigest, buildDigest(buildSecretData(remote)),
+                removeSecretsFromManagedKafka(remote));
+        fingerprints.put(key, result);
+        return result;
+    }
+
     public Secret buildSecret(ManagedKafka managedKafka) {
         Secret secret = buildSecret(OperandUtils.masterSecretName(managedKafka),
                             "Opaque",
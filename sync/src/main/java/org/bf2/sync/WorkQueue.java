@@ -0,0 +1,227 @@
+package org.bf2.sync;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A keyed work queue modeled after the client-go workqueue
+ * https://github.com/kubernetes/client-go/tree/master/util/workqueue
+ * <br>
+ * <ul>
+ * <li>adding a key that is already pending is a no-op - the processor is expected
+ * to refresh the latest state when it runs, so the pending work supersedes the new</li>
+ * <li>a key is never processed concurrently - adding a key while it's being
+ * processed will cause it to be processed again once the current run completes</li>
+ * <li>a failed key is retried with a per-key exponential backoff, during which
+ * additions of that key are deferred to the retry</li>
+ * </ul>
+ * Processing happens on the supplied {@link Executor} with at most maxWorkers tasks active
+ * at a time.  The executor must run or reject each task, rather than silently discard it, as
+ * a worker that never runs keeps its slot - see {@link ExecutorServiceProvider#newFixedThreadPool(String, int)}.
+ */
+public class WorkQueue<K> {
+
+    private static Logger log = Logger.getLogger(WorkQueue.class);
+
+    private final Executor executor;
+    private final int maxWorkers;
+    private final Consumer<K> processor;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /* pending keys in insertion order, with the time they were queued */
+    private final LinkedHashMap<K, Long> queued = new LinkedHashMap<>();
+    private final Set<K> processing = new HashSet<>();
+    /* keys added while processing that need another pass */
+    private final Set<K> dirty = new HashSet<>();
+    /* keys waiting on a delayed retry */
+    private final Set<K> backingOff = new HashSet<>();
+    private final Map<K, Integer> failures = new HashMap<>();
+    private int activeWorkers;
+    private boolean shutdown;
+
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sync-workqueue-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Timer waitTimer;
+    private final Timer workTimer;
+    private final Counter retries;
+    private final Counter superseded;
+
+    public WorkQueue(String name, Executor executor, int maxWorkers, Duration initialBackoff, Duration maxBackoff,
+            MeterRegistry meterRegistry, Consumer<K> processor) {
+        this.executor = executor;
+        this.maxWorkers = maxWorkers;
+        this.processor = processor;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+
+        meterRegistry.gauge("sync.queue.depth", Tags.of("name", name), this, WorkQueue::size);
+        this.waitTimer = Timer.builder("sync.queue.wait")
+                .tag("name", name)
+                .description("The time spent by a key in the queue before processing")
+                .register(meterRegistry);
+        this.workTimer = Timer.builder("sync.queue.work")
+                .tag("name", name)
+                .description("The time spent processing a key")
+                .register(meterRegistry);
+        this.retries = Counter.builder("sync.queue.retries")
+                .tag("name", name)
+                .description("The number of keys scheduled for a retry after a failure")
+                .register(meterRegistry);
+        this.superseded = Counter.builder("sync.queue.superseded")
+                .tag("name", name)
+                .description("The number of additions that were merged with already pending work")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add the key for processing.  If the key is already pending, or is
+     * waiting on a retry, this is effectively a no-op.
+     */
+    public void add(K key) {
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            if (backingOff.contains(key)) {
+                superseded.increment();
+                return;
+            }
+            if (processing.contains(key)) {
+                dirty.add(key);
+                return;
+            }
+            if (queued.putIfAbsent(key, System.nanoTime()) != null) {
+                superseded.increment();
+                return;
+            }
+            if (activeWorkers >= maxWorkers) {
+                return;
+            }
+            activeWorkers++;
+        }
+        startWorker();
+    }
+
+    /**
+     * The number of keys pending processing, not including those
+     * in process or waiting on a retry
+     */
+    public synchronized int size() {
+        return queued.size();
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            queued.clear();
+        }
+        retryExecutor.shutdownNow();
+    }
+
+    private void startWorker() {
+        try {
+            executor.execute(this::work);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                activeWorkers--;
+            }
+            log.warn("Could not start a work queue worker", e);
+        }
+    }
+
+    private void work() {
+        K key;
+        while ((key = next()) != null) {
+            boolean success = false;
+            long start = System.nanoTime();
+            try {
+                processor.accept(key);
+                success = true;
+            } catch (Exception e) {
+                log.errorf(e, "Error processing %s", key);
+            } finally {
+                workTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                done(key, success);
+            }
+        }
+    }
+
+    private synchronized K next() {
+        Iterator<Map.Entry<K, Long>> iter = queued.entrySet().iterator();
+        if (shutdown || !iter.hasNext()) {
+            activeWorkers--;
+            return null;
+        }
+        Map.Entry<K, Long> entry = iter.next();
+        iter.remove();
+        waitTimer.record(System.nanoTime() - entry.getValue(), TimeUnit.NANOSECONDS);
+        processing.add(entry.getKey());
+        return entry.getKey();
+    }
+
+    private void done(K key, boolean success) {
+        synchronized (this) {
+            processing.remove(key);
+            if (shutdown) {
+                return;
+            }
+            if (success) {
+                failures.remove(key);
+                if (dirty.remove(key)) {
+                    // we're still within a worker, so it will be picked up by the loop
+                    queued.put(key, System.nanoTime());
+                }
+                return;
+            }
+            // the retry will pick up the latest state
+            dirty.remove(key);
+            backingOff.add(key);
+        }
+        long delay = nextBackoff(key);
+        retries.increment();
+        log.debugf("Retrying %s in %s ms", key, delay);
+        try {
+            retryExecutor.schedule(() -> {
+                synchronized (this) {
+                    backingOff.remove(key);
+                }
+                add(key);
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    synchronized long nextBackoff(K key) {
+        int count = failures.merge(key, 1, Integer::sum);
+        // cap the shift to avoid overflow
+        long delay = initialBackoffMillis << Math.min(count - 1, 30);
+        if (delay <= 0 || delay > maxBackoffMillis) {
+            return maxBackoffMillis;
+        }
+        return delay;
+    }
+
+}
@@ -1,31 +1,49 @@
 package org.bf2.sync.controlplane;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.fabric8.kubernetes.client.informers.cache.Cache;
+import io.fabric8.kubernetes.client.utils.Serialization;
 import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.scheduler.Scheduled;
 import io.quarkus.scheduler.Scheduled.ConcurrentExecution;
 import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgentStatus;
-import org.bf2.operator.resources.v1alpha1.ManagedKafkaList;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaStatus;
+import org.bf2.sync.ExecutorServiceProvider;
 import org.bf2.sync.informer.LocalLookup;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.function.Supplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static java.util.Objects.requireNonNullElse;
 
@@ -33,6 +51,8 @@ import static java.util.Objects.requireNonNullElse;
 public class ControlPlane {
 
     private static final ManagedKafkaStatus EMPTY_MANAGED_KAFKA_STATUS = new ManagedKafkaStatus();
+    private static final ObjectMapper STATUS_MAPPER = Serialization.jsonMapper().copy()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
 
     @Inject
     Logger log;
@@ -47,14 +67,81 @@ public class ControlPlane {
     @Inject
     ExecutorService executorService;
 
+    @Inject
+    ExecutorServiceProvider executorServiceProvider;
+
     @Inject
     LocalLookup localLookup;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "poll.full-interval")
+    Duration fullPollInterval;
+
+    @ConfigProperty(name = "status.batch.window")
+    Duration statusBatchWindow;
+
+    @ConfigProperty(name = "status.batch.max-in-flight", defaultValue = "2")
+    int statusMaxInFlight;
+
+    @ConfigProperty(name = "status.batch.shutdown-timeout", defaultValue = "10s")
+    Duration statusShutdownTimeout;
+
+    @ConfigProperty(name = "resync.full-interval")
+    Duration fullResyncInterval;
+
+    private ExecutorService statusExecutor;
+    private StatusBatcher statusBatcher;
+
     /* holds a copy of the remote desired state */
     private ConcurrentHashMap<String, ManagedKafka> desiredState = new ConcurrentHashMap<>();
 
-    void addDesiredState(ManagedKafka remoteManagedKafka) {
-        desiredState.put(managedKafkaKey(remoteManagedKafka), remoteManagedKafka);
+    /**
+     * The digest of the json of a remote ManagedKafka as it was read
+     */
+    private static final class ContentDigest {
+        final ManagedKafka managedKafka;
+        final String digest;
+
+        ContentDigest(ManagedKafka managedKafka, String digest) {
+            this.managedKafka = managedKafka;
+            this.digest = digest;
+        }
+    }
+
+    private ConcurrentHashMap<String, ContentDigest> contentDigests = new ConcurrentHashMap<>();
+
+    /* the ETag of the last list retrieved from the control plane */
+    private volatile String kafkaClustersTag;
+    private volatile long lastFullPoll;
+
+    /* the hash of the last status successfully sent, by ManagedKafka id */
+    private ConcurrentHashMap<String, String> acknowledgedStatus = new ConcurrentHashMap<>();
+    private volatile long lastFullResync;
+    private volatile boolean resynced;
+
+    @PostConstruct
+    void init() {
+        // a batch holds an in flight permit until it is sent, so it must not be queued behind, or discarded from, the shared pool
+        statusExecutor = executorServiceProvider.newFixedThreadPool("sync.status", statusMaxInFlight);
+        statusBatcher = new StatusBatcher(statusBatchWindow, statusMaxInFlight, statusExecutor, meterRegistry,
+                status -> {
+                    controlPlaneClient.updateKafkaClustersStatus(id, status);
+                    status.forEach((k, v) -> acknowledgedStatus.put(k, statusHash(v)));
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        statusBatcher.shutdown(statusShutdownTimeout);
+        statusExecutor.shutdown();
+    }
+
+    void addDesiredState(ManagedKafka remoteManagedKafka, String contentDigest) {
+        String key = managedKafkaKey(remoteManagedKafka);
+        contentDigests.put(key, new ContentDigest(remoteManagedKafka, contentDigest));
+        desiredState.put(key, remoteManagedKafka);
     }
 
     /**
@@ -62,7 +149,23 @@ public class ControlPlane {
      * @param remoteManagedKafka
      */
     public void removeDesiredState(ManagedKafka remoteManagedKafka) {
-        desiredState.remove(managedKafkaKey(remoteManagedKafka));
+        String key = managedKafkaKey(remoteManagedKafka);
+        desiredState.remove(key);
+        contentDigests.remove(key);
+    }
+
+    /**
+     * Get the digest of the json of the remote ManagedKafka, as it was read from the control plane.
+     * The same content is given the same digest, so it can be recognized from one poll to the next
+     * without comparing the instances.
+     * @return the digest, or null if the instance was not read from the control plane
+     */
+    public String getContentDigest(ManagedKafka remoteManagedKafka) {
+        ContentDigest contentDigest = contentDigests.get(managedKafkaKey(remoteManagedKafka));
+        if (contentDigest == null || contentDigest.managedKafka != remoteManagedKafka) {
+            return null;
+        }
+        return contentDigest.digest;
     }
 
     /**
@@ -76,7 +179,7 @@ public class ControlPlane {
 
     /**
      * Get all known desired states.  May include orphan entries
-     * not in {@link #getKafkaClusters()} and entries that have not
+     * not in the last remote list and entries that have not
      * yet been created locally.
      */
     public Collection<ManagedKafka> getDesiredStates() {
@@ -125,17 +228,56 @@ public class ControlPlane {
 
     /**
      * Get the current list of ManagedKafka clusters from the control plane
-     * as a blocking call.
+     * as a blocking call, but only if it has changed since the last call.
+     * A full list is requested at least every poll.full-interval.
+     * <br>
+     * The list is streamed, with each ManagedKafka passed to the consumer as it is read.
      * Also updates the cache of desired state ManagedKafka instances.  May include
      * entries that have not yet been created locally.
      *
+     * @return false if the list is unchanged since the last call
      * @see {@link #getDesiredStates()} to get the full cache, rather than making a
      * remote call
      */
-    public List<ManagedKafka> getKafkaClusters() {
-        ManagedKafkaList result = controlPlaneClient.getKafkaClusters(id);
-        result.getItems().forEach((mk)->addDesiredState(mk));
-        return result.getItems();
+    public boolean getKafkaClustersIfChanged(Consumer<ManagedKafka> consumer) {
+        String tag = kafkaClustersTag;
+        long now = System.nanoTime();
+        if (tag != null && now - lastFullPoll > fullPollInterval.toNanos()) {
+            tag = null;
+        }
+        Response response = controlPlaneClient.getKafkaClusters(id, tag);
+        try {
+            if (tag != null && response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+                return false;
+            }
+            InputStream stream = response.readEntity(InputStream.class);
+            if (ControlPlaneCompressionFilter.GZIP.equalsIgnoreCase(response.getHeaderString(HttpHeaders.CONTENT_ENCODING))) {
+                stream = new GZIPInputStream(stream);
+            }
+            int count = ManagedKafkaListReader.read(stream, (mk, digest) -> {
+                addDesiredState(mk, digest);
+                consumer.accept(mk);
+            });
+            log.debugf("Read %s managed kafkas from the control plane", count);
+            if (tag == null) {
+                lastFullPoll = now;
+            }
+            // only after the whole list has been processed
+            kafkaClustersTag = Optional.ofNullable(response.getEntityTag()).map(EntityTag::toString).orElse(null);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Ensure that the next call to {@link #getKafkaClustersIfChanged()} retrieves the full list,
+     * for example when the processing of the last list did not complete.
+     */
+    public void resetKafkaClustersRevision() {
+        kafkaClustersTag = null;
     }
 
     /**
@@ -146,43 +288,45 @@ public class ControlPlane {
     }
 
     /**
-     * Make an async call to update the status.
+     * Make an async call to update the status with the next batch.
+     * The latest status of the local ManagedKafka will be sent.
      */
     public void updateKafkaClusterStatus(String localMetaNamespaceKey, String clusterId) {
-        updateKafkaClusterStatus(() -> {
-            ManagedKafka kafka = localLookup.getLocalManagedKafka(localMetaNamespaceKey);
-            if (kafka == null) {
-                return Collections.emptyMap();
-            }
-            // for consistency we'll send an empty status
-            return Map.<String, ManagedKafkaStatus>of(clusterId, requireNonNullElse(kafka.getStatus(), EMPTY_MANAGED_KAFKA_STATUS));
-        });
+        log.debugf("Updating managedkafka %s status", clusterId);
+        queueKafkaClusterStatus(localMetaNamespaceKey, clusterId);
+        statusBatcher.requestFlush();
     }
 
     /**
-     * Make an async call to update the status.
-     *
-     * A {@link Supplier} is used to defer the map construction.
+     * Make an async call to update the status with the next batch.
      */
-    public void updateKafkaClusterStatus(Supplier<Map<String, ManagedKafkaStatus>> statusSupplier) {
-        log.debug("Updating managedkafka(s) status");
-        executorService.execute(() -> {
-            Map<String, ManagedKafkaStatus> status = statusSupplier.get();
-            if (status.isEmpty()) {
-                return;
+    public void updateKafkaClusterStatus(String clusterId, ManagedKafkaStatus status) {
+        log.debugf("Updating managedkafka %s status", clusterId);
+        statusBatcher.add(clusterId, () -> status);
+        statusBatcher.requestFlush();
+    }
+
+    private void queueKafkaClusterStatus(String localMetaNamespaceKey, String clusterId) {
+        statusBatcher.add(clusterId, () -> {
+            ManagedKafka kafka = localLookup.getLocalManagedKafka(localMetaNamespaceKey);
+            if (kafka == null) {
+                return null;
             }
-            controlPlaneClient.updateKafkaClustersStatus(id, status);
+            // for consistency we'll send an empty status
+            return requireNonNullElse(kafka.getStatus(), EMPTY_MANAGED_KAFKA_STATUS);
         });
     }
 
     /**
      * Async update the control plane with the status of this ManagedKafka, but
-     * only if it's different than the old
+     * only if it's different than the old and what was last sent
      *
      * newManagedKafka is expected to be non-null as deletes are not processed
      */
     public void updateKafkaClusterStatus(ManagedKafka oldManagedKafka, ManagedKafka newManagedKafka) {
-        if (newManagedKafka.getId() != null && oldManagedKafka != null && statusChanged(oldManagedKafka.getStatus(), newManagedKafka.getStatus())) {
+        if (newManagedKafka.getId() != null && oldManagedKafka != null
+                && statusChanged(oldManagedKafka.getStatus(), newManagedKafka.getStatus())
+                && !isAcknowledged(newManagedKafka)) {
             // send a status update immediately (async)
             updateKafkaClusterStatus(Cache.metaNamespaceKeyFunc(newManagedKafka), newManagedKafka.getId());
         }
@@ -195,21 +339,63 @@ public class ControlPlane {
         if (newStatus == null) {
             return false;
         }
-        return !Objects.equals(oldStatus.getUpdatedTimestamp(), newStatus.getUpdatedTimestamp());
+        return !Objects.equals(oldStatus, newStatus);
+    }
+
+    /**
+     * @return true if the current status of the ManagedKafka is what was last sent to the control plane
+     */
+    boolean isAcknowledged(ManagedKafka managedKafka) {
+        String acknowledged = acknowledgedStatus.get(managedKafka.getId());
+        return acknowledged != null
+                && acknowledged.equals(statusHash(requireNonNullElse(managedKafka.getStatus(), EMPTY_MANAGED_KAFKA_STATUS)));
     }
 
     /**
-     * On the resync interval, send everything
+     * A stable hash of the status content as it is sent to the control plane
+     */
+    static String statusHash(ManagedKafkaStatus status) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            return String.format("%040x", new BigInteger(1, digest.digest(STATUS_MAPPER.writeValueAsBytes(status))));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * On the resync interval, send the status of everything that differs from
+     * what was last sent.  On the longer full resync interval send everything.
      */
     @Counted(value = "sync.resync", description = "The number of resync calls") // no need to be timed as the actions are async
     @Scheduled(every = "{resync.interval}", concurrentExecution = ConcurrentExecution.SKIP)
     public void sendResync() {
-        log.debug("Updating status on resync interval");
-        updateKafkaClusterStatus(() -> {
-            return localLookup.getLocalManagedKafkas().stream().filter(mk -> mk.getId() != null)
-                    .collect(Collectors.toMap(ManagedKafka::getId,
-                            (mk) -> requireNonNullElse(mk.getStatus(), EMPTY_MANAGED_KAFKA_STATUS)));
-        });
+        if (!localLookup.isSynced()) {
+            return;
+        }
+        long now = System.nanoTime();
+        boolean full = !resynced || now - lastFullResync > fullResyncInterval.toNanos();
+        log.debugf("Updating status on resync interval, full %s", full);
+        List<ManagedKafka> managedKafkas = localLookup.getLocalManagedKafkas()
+                .stream()
+                .filter(mk -> mk.getId() != null)
+                .collect(Collectors.toList());
+        if (full) {
+            resynced = true;
+            lastFullResync = now;
+            // forget anything that no longer exists locally
+            Set<String> ids = managedKafkas.stream().map(ManagedKafka::getId).collect(Collectors.toSet());
+            acknowledgedStatus.keySet().retainAll(ids);
+        }
+        managedKafkas.stream()
+                .filter(mk -> full || !isAcknowledged(mk))
+                .forEach(mk -> queueKafkaClusterStatus(Cache.metaNamespaceKeyFunc(mk), mk.getId()));
+        statusBatcher.requestFlush();
         updateAgentStatus();
     }
 
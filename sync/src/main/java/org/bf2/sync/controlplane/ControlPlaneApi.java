@@ -7,11 +7,14 @@ import org.bf2.operator.resources.v1alpha1.ManagedKafkaStatus;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import java.util.Map;
 
@@ -29,10 +32,16 @@ public interface ControlPlaneApi {
     @Consumes(MediaType.APPLICATION_JSON)
     void updateStatus(@PathParam("id") String id, ManagedKafkaAgentStatus status);
 
+    /**
+     * Get the {@link ManagedKafkaList} for the cluster.
+     * <br>
+     * The response may carry an ETag for the current revision of the list.  If ifNoneMatch
+     * is that ETag, then a 304 response without an entity is returned instead.
+     */
     @GET
     @Path("/{id}/kafkas")
     @Produces(MediaType.APPLICATION_JSON)
-    ManagedKafkaList getKafkaClusters(@PathParam("id") String id);
+    Response getKafkaClusters(@PathParam("id") String id, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch);
 
     @PUT
     @Path("/{id}/kafkas/status")
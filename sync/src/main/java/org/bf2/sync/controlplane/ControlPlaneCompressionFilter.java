@@ -0,0 +1,35 @@
+package org.bf2.sync.controlplane;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * Requests a gzip encoded ManagedKafka list, which is decoded by {@link ControlPlane} as it is streamed.
+ * <br>
+ * If control-plane.gzip-requests is true, request entities are gzip encoded as well - this
+ * relies on the GZIPEncodingInterceptor also being registered.
+ */
+public class ControlPlaneCompressionFilter implements ClientRequestFilter {
+
+    static final String GZIP = "gzip";
+    static final String KAFKAS_PATH = "/kafkas";
+
+    private final boolean gzipRequests = ConfigProvider.getConfig()
+            .getOptionalValue("control-plane.gzip-requests", Boolean.class)
+            .orElse(false);
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        if (HttpMethod.GET.equals(requestContext.getMethod())
+                && requestContext.getUri().getPath().endsWith(KAFKAS_PATH)) {
+            requestContext.getHeaders().putSingle(HttpHeaders.ACCEPT_ENCODING, GZIP);
+        } else if (gzipRequests && requestContext.hasEntity()) {
+            requestContext.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+    }
+
+}
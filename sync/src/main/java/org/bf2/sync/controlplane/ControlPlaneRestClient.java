@@ -1,12 +1,16 @@
 package org.bf2.sync.controlplane;
 
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+import org.jboss.resteasy.plugins.interceptors.GZIPEncodingInterceptor;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.ws.rs.Path;
 
 @ApplicationScoped
 @RegisterRestClient(configKey = "control-plane")
+@RegisterProvider(ControlPlaneCompressionFilter.class)
+@RegisterProvider(GZIPEncodingInterceptor.class)
 @Path(ControlPlaneApi.BASE_PATH)
 public interface ControlPlaneRestClient extends ControlPlaneApi {
 
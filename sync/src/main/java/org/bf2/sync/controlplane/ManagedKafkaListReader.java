@@ -0,0 +1,130 @@
+package org.bf2.sync.controlplane;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import org.bf2.operator.resources.v1alpha1.ManagedKafka;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaList;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads a {@link ManagedKafkaList} json document one item at a time, so that
+ * the full list does not need to be held in memory.
+ * <br>
+ * Each item is given with a digest of its json, so that unchanged items can be recognized
+ * without comparing them to what was previously read.
+ */
+class ManagedKafkaListReader {
+
+    private static final String ITEMS = "items";
+
+    private ManagedKafkaListReader() {
+    }
+
+    /**
+     * Retains the bytes read since the start of the current item, which the parser
+     * may have read ahead of
+     */
+    private static final class RecordingInputStream extends FilterInputStream {
+        private byte[] buffer = new byte[8192];
+        /* the stream offset of buffer[0] */
+        private long start;
+        private int length;
+
+        RecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                record(new byte[] {(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                record(b, off, read);
+            }
+            return read;
+        }
+
+        private void record(byte[] b, int off, int len) {
+            if (length + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + len));
+            }
+            System.arraycopy(b, off, buffer, length, len);
+            length += len;
+        }
+
+        /**
+         * Discard the bytes before the offset
+         */
+        void discard(long offset) {
+            int count = (int) (offset - start);
+            System.arraycopy(buffer, count, buffer, 0, length - count);
+            length -= count;
+            start = offset;
+        }
+
+        String digest(long from, long to) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            digest.update(buffer, (int) (from - start), (int) (to - from));
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        }
+    }
+
+    /**
+     * @param consumer accepts each item and the digest of its json
+     * @return the number of items read
+     */
+    static int read(InputStream stream, BiConsumer<ManagedKafka, String> consumer) throws IOException {
+        ObjectMapper mapper = Serialization.jsonMapper();
+        RecordingInputStream recording = new RecordingInputStream(stream);
+        int count = 0;
+        try (JsonParser parser = mapper.getFactory().createParser(recording)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a ManagedKafkaList object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (!ITEMS.equals(field) || token != JsonToken.START_ARRAY) {
+                    // kind, apiVersion, metadata, or a null items
+                    parser.skipChildren();
+                    continue;
+                }
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    long itemStart = parser.getTokenLocation().getByteOffset();
+                    recording.discard(itemStart);
+                    ManagedKafka managedKafka = mapper.readValue(parser, ManagedKafka.class);
+                    consumer.accept(managedKafka, recording.digest(itemStart, parser.getCurrentLocation().getByteOffset()));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+}
@@ -25,12 +25,15 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @ApplicationScoped
 @UnlessBuildProfile("prod")
@@ -59,6 +62,9 @@ public class MockControlPlane implements ControlPlaneApi {
     // Unique Id for the clusters
     private AtomicInteger clusterIdGenerator = new AtomicInteger(1);
 
+    // incremented on every change to the kafkas, used as the ETag
+    private AtomicLong revision = new AtomicLong();
+
     @Scheduled(every = "{poll.interval}")
     void loop() {
 
@@ -76,6 +82,7 @@ public class MockControlPlane implements ControlPlaneApi {
                 ManagedKafka k = ManagedKafka.getDummyInstance(this.clusterIdGenerator.getAndIncrement());
                 log.infof("control plane::marking %s for addition", k.getId());
                 this.kafkas.put(k.getId(), k);
+                this.revision.incrementAndGet();
             }
         }
 
@@ -98,6 +105,7 @@ public class MockControlPlane implements ControlPlaneApi {
             ManagedKafka k = ManagedKafka.getDummyInstance(this.clusterIdGenerator.getAndIncrement());
             log.infof("control plane:: creating a new cluster %s ", k.getId());
             this.kafkas.put(k.getId(), k);
+            this.revision.incrementAndGet();
         }
 
         log.info("--------------------------------------------------");
@@ -112,6 +120,7 @@ public class MockControlPlane implements ControlPlaneApi {
         if (mk != null && !mk.isMarkedForDeletion()) {
             log.infof("control plane:: marking cluster %s for deletion", mk.getId());
             mk.getSpec().setDeleted(true);
+            this.revision.incrementAndGet();
         } else {
             log.infof("control plane:: Is cluster %s already deleted?", id);
         }
@@ -132,9 +141,14 @@ public class MockControlPlane implements ControlPlaneApi {
     }
 
     @Override
-    public ManagedKafkaList getKafkaClusters(String id) {
+    public Response getKafkaClusters(String id, String ifNoneMatch) {
         log.info("control plane::getKafkaClusters <- Received");
-        return new ManagedKafkaList(kafkas.values());
+        // read the revision first so that a concurrent change cannot be hidden behind an older tag
+        EntityTag tag = new EntityTag(String.valueOf(revision.get()));
+        if (tag.toString().equals(ifNoneMatch)) {
+            return Response.notModified(tag).build();
+        }
+        return Response.ok(new ManagedKafkaList(kafkas.values())).tag(tag).build();
     }
 
     @Override
@@ -150,6 +164,7 @@ public class MockControlPlane implements ControlPlaneApi {
                     log.infof("control plane:: Removing cluster %s as it is deleted", mk.getId());
                     this.kafkas.remove(k);
                     this.kafkaStatus.remove(k);
+                    this.revision.incrementAndGet();
                 } else {
                     this.kafkaStatus.put(k, v);
                 }
@@ -168,6 +183,7 @@ public class MockControlPlane implements ControlPlaneApi {
     @Consumes(MediaType.APPLICATION_JSON)
     public void createCluster(ManagedKafka mk) {
         this.kafkas.put(mk.getId(), mk);
+        this.revision.incrementAndGet();
         log.infof("control plane:: Received request to create/update ManagedKafka %s", mk.getId());
     }
 
@@ -0,0 +1,216 @@
+package org.bf2.sync.controlplane;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaStatus;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Collects ManagedKafka status updates over a window and sends them as a single map.
+ * <br>
+ * Statuses are held as {@link Supplier}s keyed by ManagedKafka id, so that a later update
+ * for the same id replaces the earlier and the latest state is read when the batch is sent.
+ * At most maxInFlight batches are sent concurrently, a failed batch is retried once with the next
+ * flush, after which it is dropped and left to the next resync.
+ * <br>
+ * On shutdown the batches in flight are given time to complete, or to be requeued if they fail, before
+ * what remains is sent.
+ */
+class StatusBatcher {
+
+    private static Logger log = Logger.getLogger(StatusBatcher.class);
+
+    private static final class PendingStatus {
+        final Supplier<ManagedKafkaStatus> status;
+        final boolean retry;
+
+        PendingStatus(Supplier<ManagedKafkaStatus> status, boolean retry) {
+            this.status = status;
+            this.retry = retry;
+        }
+    }
+
+    private final Duration window;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Executor executor;
+    private final Consumer<Map<String, ManagedKafkaStatus>> sender;
+
+    private final ConcurrentHashMap<String, PendingStatus> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean shuttingDown;
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sync-status-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final DistributionSummary batchSize;
+    private final Timer flushTimer;
+    private final Counter retried;
+    private final Counter dropped;
+
+    StatusBatcher(Duration window, int maxInFlight, Executor executor, MeterRegistry meterRegistry,
+            Consumer<Map<String, ManagedKafkaStatus>> sender) {
+        this.window = window;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = executor;
+        this.sender = sender;
+
+        this.batchSize = DistributionSummary.builder("sync.status.batch.size")
+                .description("The number of ManagedKafka statuses sent in a single update")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("sync.status.flush")
+                .description("The time spent sending a batch of ManagedKafka statuses")
+                .register(meterRegistry);
+        this.retried = Counter.builder("sync.status.batches")
+                .tag("result", "retried")
+                .description("The number of failed status batches that were requeued to be sent with the next flush")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("sync.status.batches")
+                .tag("result", "dropped")
+                .description("The number of status batches that failed again on their retry and were left to the next resync")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add the status to the next batch, replacing any pending status for the same id.
+     * {@link #requestFlush()} should be called after.
+     */
+    void add(String managedKafkaId, Supplier<ManagedKafkaStatus> status) {
+        pending.put(managedKafkaId, new PendingStatus(status, false));
+    }
+
+    /**
+     * Ensure that a flush will happen within the window
+     */
+    void requestFlush() {
+        if (window.isZero()) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                flushExecutor.schedule(this::flush, window.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+            }
+        }
+    }
+
+    void flush() {
+        flushScheduled.set(false);
+        if (shuttingDown || pending.isEmpty()) {
+            return;
+        }
+        if (!inFlight.tryAcquire()) {
+            // try again after the window
+            log.debug("Too many status updates in flight, deferring");
+            if (!window.isZero()) {
+                requestFlush();
+            }
+            return;
+        }
+        Map<String, PendingStatus> batch = drain();
+        try {
+            executor.execute(() -> {
+                try {
+                    send(batch);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down, the batch was not attempted so it is restored as is
+            inFlight.release();
+            batch.forEach(pending::putIfAbsent);
+        }
+    }
+
+    /**
+     * Stop flushing, wait up to the timeout for the batches in flight, then synchronously send anything pending.
+     * The executor should only be shut down after.
+     */
+    void shutdown(Duration timeout) {
+        shuttingDown = true;
+        flushExecutor.shutdownNow();
+        try {
+            if (!inFlight.tryAcquire(maxInFlight, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Status updates are still in flight, they may not be sent");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Map<String, PendingStatus> batch = drain();
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private Map<String, PendingStatus> drain() {
+        Map<String, PendingStatus> batch = new HashMap<>();
+        for (String key : pending.keySet()) {
+            PendingStatus value = pending.remove(key);
+            if (value != null) {
+                batch.put(key, value);
+            }
+        }
+        return batch;
+    }
+
+    private void send(Map<String, PendingStatus> batch) {
+        Map<String, ManagedKafkaStatus> statuses = new HashMap<>();
+        batch.forEach((k, v) -> {
+            ManagedKafkaStatus status = v.status.get();
+            if (status != null) {
+                statuses.put(k, status);
+            }
+        });
+        if (statuses.isEmpty()) {
+            return;
+        }
+        batchSize.record(statuses.size());
+        try {
+            flushTimer.record(() -> sender.accept(statuses));
+        } catch (RuntimeException e) {
+            log.warnf(e, "Could not send the status of %s ManagedKafkas", statuses.size());
+            requeue(batch);
+        }
+    }
+
+    private void requeue(Map<String, PendingStatus> batch) {
+        boolean retry = false;
+        for (Map.Entry<String, PendingStatus> entry : batch.entrySet()) {
+            if (!entry.getValue().retry) {
+                retry = true;
+                // a newer pending status takes precedence
+                pending.putIfAbsent(entry.getKey(), new PendingStatus(entry.getValue().status, true));
+            }
+        }
+        if (retry) {
+            retried.increment();
+            if (!window.isZero()) {
+                requestFlush();
+            }
+        } else {
+            dropped.increment();
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package org.bf2.sync.informer;
 
+import io.fabric8.kubernetes.api.model.Namespace;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.informers.cache.Cache;
@@ -19,6 +20,7 @@ import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import java.util.Collections;
 import java.util.List;
 
 @Startup
@@ -40,6 +42,7 @@ public class InformerManager implements LocalLookup {
     private ResourceInformer<ManagedKafka> managedKafkaInformer;
     private ResourceInformer<ManagedKafkaAgent> managedAgentInformer;
     private ResourceInformer<Secret> secretInformer;
+    private ResourceInformer<Namespace> namespaceInformer;
 
     @PostConstruct
     protected void onStart() {
@@ -50,8 +53,13 @@ public class InformerManager implements LocalLookup {
         managedAgentInformer = resourceInformerFactory.create(ManagedKafkaAgent.class, client.resources(ManagedKafkaAgent.class).inNamespace(client.getNamespace()),
                 CustomResourceEventHandler.of(controlPlane::updateAgentStatus));
 
+        // the master secret data is always rebuilt from the remote, only the metadata of the existing secret is needed
         secretInformer = resourceInformerFactory.create(Secret.class, client.secrets().inAnyNamespace().withLabels(OperandUtils.getMasterSecretLabel()),
-                null);
+                null, Collections.emptyMap(), ResourceInformerFactory.metadataOnly(Secret::new));
+
+        // only the namespaces created by the sync are of interest
+        namespaceInformer = resourceInformerFactory.create(Namespace.class, client.namespaces().withLabels(OperandUtils.getDefaultLabels()),
+                null, Collections.emptyMap(), ResourceInformerFactory.metadataOnly(Namespace::new));
 
         meterRegistry.gauge("managedkafkas", this, (informer) -> {
             return informer.getLocalManagedKafkas().size();
@@ -90,4 +98,14 @@ public class InformerManager implements LocalLookup {
     public Secret getLocalSecret(String namespace, String name) {
         return secretInformer.getByKey(Cache.namespaceKeyFunc(namespace, name));
     }
+
+    @Override
+    public Namespace getLocalNamespace(String name) {
+        return namespaceInformer.getByKey(name);
+    }
+
+    @Override
+    public boolean isSynced() {
+        return resourceInformerFactory.allInformersSynced();
+    }
 }
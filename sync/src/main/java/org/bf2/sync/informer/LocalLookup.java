@@ -1,5 +1,6 @@
 package org.bf2.sync.informer;
 
+import io.fabric8.kubernetes.api.model.Namespace;
 import io.fabric8.kubernetes.client.informers.cache.Cache;
 import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
@@ -20,4 +21,17 @@ public interface LocalLookup {
 
     ManagedKafkaAgent getLocalManagedKafkaAgent();
 
+    /**
+     * Only namespaces with the fleetshard managed-by label are available
+     */
+    Namespace getLocalNamespace(String name);
+
+    /**
+     * @return true if the local state has been fully cached, until then lookups may return null
+     * for resources that exist
+     */
+    default boolean isSynced() {
+        return true;
+    }
+
 }
@@ -1,22 +1,33 @@
 package org.bf2.sync;
 
 import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.test.Mock;
 
-import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
 
 import java.util.concurrent.ExecutorService;
 
 @Mock
-@ApplicationScoped
-public class DirectExecutorServiceProvider {
+@Singleton
+public class DirectExecutorServiceProvider extends ExecutorServiceProvider {
 
     ExecutorService direct = MoreExecutors.newDirectExecutorService();
 
+    public DirectExecutorServiceProvider(MeterRegistry meterRegistry) {
+        super(meterRegistry);
+    }
+
+    @Override
     @Produces
     public ExecutorService executorService() {
         return direct;
     }
 
+    @Override
+    public ExecutorService newFixedThreadPool(String name, int threads) {
+        return MoreExecutors.newDirectExecutorService();
+    }
+
 }
@@ -1,8 +1,10 @@
 package org.bf2.sync;
 
+import io.fabric8.kubernetes.api.model.Namespace;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.quarkus.test.Mock;
 import org.bf2.common.ManagedKafkaResourceClient;
+import org.bf2.common.OperandUtils;
 import org.bf2.operator.resources.v1alpha1.ManagedKafka;
 import org.bf2.operator.resources.v1alpha1.ManagedKafkaAgent;
 import org.bf2.sync.informer.LocalLookup;
@@ -46,4 +48,17 @@ public class DirectLocalLookup implements LocalLookup {
         return items.get(0);
     }
 
+    @Override
+    public Namespace getLocalNamespace(String name) {
+        // the same as the informer, which only has namespaces with the managed-by label
+        return kubeClient.namespaces()
+                .withLabels(OperandUtils.getDefaultLabels())
+                .list()
+                .getItems()
+                .stream()
+                .filter(n -> name.equals(n.getMetadata().getName()))
+                .findFirst()
+                .orElse(null);
+    }
+
 }
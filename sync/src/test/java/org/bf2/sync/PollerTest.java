@@ -1,6 +1,8 @@
 package org.bf2.sync;
 
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.utils.Serialization;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.TestProfile;
 import io.quarkus.test.junit.mockito.InjectMock;
@@ -21,7 +23,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import javax.inject.Inject;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.time.Duration;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -73,6 +79,22 @@ public class PollerTest {
     public void afterEach() {
         // the test resource is suite scoped, so we clean up after each test
         managedKafkaClient.list().forEach((mk)->managedKafkaClient.delete(mk.getMetadata().getNamespace(), mk.getMetadata().getName()));
+        List.copyOf(controlPlane.getDesiredStates()).forEach(controlPlane::removeDesiredState);
+        controlPlane.resetKafkaClustersRevision();
+    }
+
+    private void mockKafkaClusters(ManagedKafkaList list) {
+        mockKafkaClusters(list, null);
+    }
+
+    private void mockKafkaClusters(ManagedKafkaList list, EntityTag tag) {
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getStatus()).thenReturn(Response.Status.OK.getStatusCode());
+        // serialize on read, so that later modifications to the list items are seen
+        Mockito.when(response.readEntity(InputStream.class))
+                .thenAnswer(invocation -> new ByteArrayInputStream(Serialization.jsonMapper().writeValueAsBytes(list)));
+        Mockito.when(response.getEntityTag()).thenReturn(tag);
+        Mockito.when(controlPlaneRestClient.getKafkaClusters(Mockito.eq(CLUSTER_ID), Mockito.any())).thenReturn(response);
     }
 
     @Test
@@ -80,7 +102,7 @@ public class PollerTest {
         ManagedKafka managedKafka = exampleManagedKafka();
         managedKafka.getMetadata().setLabels(Map.of(ManagedKafka.DEPLOYMENT_TYPE, ManagedKafka.RESERVED_DEPLOYMENT_TYPE));
 
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList(Collections.singletonList(managedKafka)));
+        mockKafkaClusters(new ManagedKafkaList(Collections.singletonList(managedKafka)));
         managedKafkaSync.syncKafkaClusters();
 
         List<ManagedKafka> items = lookup.getLocalManagedKafkas();
@@ -88,7 +110,7 @@ public class PollerTest {
         assertFalse(items.get(0).getSpec().isDeleted());
         assertTrue(items.get(0).isReserveDeployment());
 
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList(Collections.emptyList()));
+        mockKafkaClusters(new ManagedKafkaList(Collections.emptyList()));
         managedKafkaSync.syncKafkaClusters();
         items = lookup.getLocalManagedKafkas();
         assertTrue(items.isEmpty());
@@ -103,7 +125,7 @@ public class PollerTest {
 
         assertNull(controlPlane.getDesiredState(ControlPlane.managedKafkaKey(managedKafka)));
 
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList(Collections.singletonList(managedKafka)));
+        mockKafkaClusters(new ManagedKafkaList(Collections.singletonList(managedKafka)));
         managedKafkaSync.syncKafkaClusters();
 
         items = lookup.getLocalManagedKafkas();
@@ -128,7 +150,7 @@ public class PollerTest {
         ManagedKafka nextPlacement = exampleManagedKafka();
         nextPlacement.setPlacementId("xyz");
         nextPlacement.getSpec().getVersions().setStrimzi("?");
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList(Arrays.asList(managedKafka, nextPlacement)));
+        mockKafkaClusters(new ManagedKafkaList(Arrays.asList(managedKafka, nextPlacement)));
         managedKafkaSync.syncKafkaClusters();
         //should still be a single placement, and it should be the old one
         items = lookup.getLocalManagedKafkas();
@@ -137,7 +159,7 @@ public class PollerTest {
 
         // update the profile type
         managedKafka = new ManagedKafkaBuilder(managedKafka).editOrNewMetadata().addToLabels(ManagedKafka.PROFILE_TYPE, "anything").endMetadata().build();
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList(Arrays.asList(managedKafka)));
+        mockKafkaClusters(new ManagedKafkaList(Arrays.asList(managedKafka)));
         managedKafkaSync.syncKafkaClusters();
         items = lookup.getLocalManagedKafkas();
         // should still be one instance, but it's profile type has been updated
@@ -145,12 +167,12 @@ public class PollerTest {
         assertEquals("anything", items.get(0).getMetadata().getLabels().get(ManagedKafka.PROFILE_TYPE));
 
         // try to remove before marked as deleted, should not be successful
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList());
+        mockKafkaClusters(new ManagedKafkaList());
         managedKafkaSync.syncKafkaClusters();
         items = lookup.getLocalManagedKafkas();
         assertEquals(1, items.size());
 
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList(Arrays.asList(managedKafka, nextPlacement)));
+        mockKafkaClusters(new ManagedKafkaList(Arrays.asList(managedKafka, nextPlacement)));
         managedKafka.getSpec().setDeleted(true);
         managedKafkaSync.syncKafkaClusters();
         items = lookup.getLocalManagedKafkas();
@@ -159,7 +181,7 @@ public class PollerTest {
         assertTrue(controlPlane.getDesiredState(ControlPlane.managedKafkaKey(managedKafka)).getSpec().isDeleted());
 
         // final removal
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList());
+        mockKafkaClusters(new ManagedKafkaList());
         managedKafkaSync.syncKafkaClusters();
         items = lookup.getLocalManagedKafkas();
         assertEquals(0, items.size());
@@ -168,7 +190,7 @@ public class PollerTest {
         assertNull(controlPlane.getDesiredState(ControlPlane.managedKafkaKey(managedKafka)));
 
         // if it shows up again need to inform the control plane delete is still needed
-        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID)).thenReturn(new ManagedKafkaList(Collections.singletonList(managedKafka)));
+        mockKafkaClusters(new ManagedKafkaList(Collections.singletonList(managedKafka)));
         managedKafkaSync.syncKafkaClusters();
 
         // expect there to be a status about the deletion
@@ -179,6 +201,31 @@ public class PollerTest {
         assertEquals(1, status.get(ID).getConditions().size());
     }
 
+    @Test
+    public void testUnchangedList() {
+        ManagedKafka managedKafka = exampleManagedKafka();
+        EntityTag tag = new EntityTag("1");
+
+        mockKafkaClusters(new ManagedKafkaList(Collections.singletonList(managedKafka)), tag);
+        Response notModified = Mockito.mock(Response.class);
+        Mockito.when(notModified.getStatus()).thenReturn(Response.Status.NOT_MODIFIED.getStatusCode());
+        Mockito.when(controlPlaneRestClient.getKafkaClusters(CLUSTER_ID, tag.toString())).thenReturn(notModified);
+
+        managedKafkaSync.syncKafkaClusters();
+        assertEquals(1, lookup.getLocalManagedKafkas().size());
+
+        // remove locally, the unchanged remote list should not be processed
+        managedKafkaClient.delete(managedKafka.getMetadata().getNamespace(), managedKafka.getMetadata().getName());
+        managedKafkaSync.syncKafkaClusters();
+        Mockito.verify(controlPlaneRestClient).getKafkaClusters(CLUSTER_ID, tag.toString());
+        assertEquals(0, lookup.getLocalManagedKafkas().size());
+
+        // the next full list should restore it
+        controlPlane.resetKafkaClustersRevision();
+        managedKafkaSync.syncKafkaClusters();
+        assertEquals(1, lookup.getLocalManagedKafkas().size());
+    }
+
     @Test
     void testUnhealthy() {
         ManagedKafka managedKafka = exampleManagedKafka();
@@ -197,6 +244,22 @@ public class PollerTest {
         Mockito.verify(terminator).notifyUnhealthy();
     }
 
+    @Test
+    public void testNamespaceWithoutManagedByLabel() {
+        ManagedKafka managedKafka = exampleManagedKafka();
+        mockKafkaClusters(new ManagedKafkaList(Collections.singletonList(managedKafka)));
+        managedKafkaSync.syncKafkaClusters();
+
+        // a namespace that is not in the namespace cache still gets the id label
+        String namespace = lookup.getLocalManagedKafkas().get(0).getMetadata().getNamespace();
+        client.namespaces().createOrReplace(new NamespaceBuilder().withNewMetadata().withName(namespace).endMetadata().build());
+        assertNull(lookup.getLocalNamespace(namespace));
+
+        controlPlane.resetKafkaClustersRevision();
+        managedKafkaSync.syncKafkaClusters();
+        assertEquals(ID, client.namespaces().withName(namespace).get().getMetadata().getLabels().get("bf2.org/managedkafka-id"));
+    }
+
     static ManagedKafka exampleManagedKafka() {
         ManagedKafka mk = ManagedKafka.getDummyInstance(1);
         mk.setId(ID);
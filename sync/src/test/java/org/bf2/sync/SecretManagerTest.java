@@ -0,0 +1,113 @@
+package org.bf2.sync;
+
+import org.bf2.operator.ManagedKafkaKeys.Annotations;
+import org.bf2.operator.resources.v1alpha1.ManagedKafka;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaBuilder;
+import org.bf2.sync.controlplane.ControlPlane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SecretManagerTest {
+
+    ControlPlane controlPlane;
+    SecretManager secretManager;
+
+    @BeforeEach
+    void setup() {
+        controlPlane = Mockito.mock(ControlPlane.class);
+        secretManager = new SecretManager();
+        secretManager.controlPlane = controlPlane;
+    }
+
+    /**
+     * @return a copy of the remote, as if it were read by another poll, with the given content digest
+     */
+    ManagedKafka polled(ManagedKafka remote, String contentDigest) {
+        ManagedKafka result = new ManagedKafkaBuilder(remote).build();
+        Mockito.when(controlPlane.getContentDigest(Mockito.same(result))).thenReturn(contentDigest);
+        return result;
+    }
+
+    ManagedKafka local(ManagedKafka remote, String resourceVersion) {
+        return new ManagedKafkaBuilder(remote)
+                .editMetadata()
+                    .withResourceVersion(resourceVersion)
+                    .addToAnnotations(Annotations.MASTER_SECRET_DIGEST, secretManager.fingerprint(remote).masterSecretDigest)
+                .endMetadata()
+                .build();
+    }
+
+    @Test
+    public void testFingerprintReuse() {
+        ManagedKafka remote = polled(ManagedKafka.getDummyInstance(1), "a");
+
+        SecretManager.RemoteFingerprint fingerprint = secretManager.fingerprint(remote);
+        assertSame(fingerprint, secretManager.fingerprint(remote));
+        assertNull(fingerprint.withoutSecrets.getSpec().getOauth().getClientSecret());
+
+        // the same content from a later poll reuses the digest and copy
+        ManagedKafka polled = polled(remote, "a");
+        SecretManager.RemoteFingerprint next = secretManager.fingerprint(polled);
+        assertSame(fingerprint.withoutSecrets, next.withoutSecrets);
+        assertSame(fingerprint.masterSecretDigest, next.masterSecretDigest);
+
+        // content that was not read from the control plane is not compared, the copy is made again
+        assertNotSame(fingerprint.withoutSecrets, secretManager.fingerprint(polled(remote, null)).withoutSecrets);
+
+        // a secret change is detected
+        ManagedKafka changed = polled(new ManagedKafkaBuilder(remote).editSpec().editOauth().withClientSecret("other").endOauth().endSpec().build(), "b");
+        ManagedKafka local = local(polled, "1");
+        assertFalse(secretManager.isMasterSecretChanged(polled, local));
+        assertTrue(secretManager.isMasterSecretChanged(changed, local));
+        assertNotEquals(fingerprint.masterSecretDigest, secretManager.fingerprint(changed).masterSecretDigest);
+    }
+
+    @Test
+    public void testKnownUnchanged() {
+        ManagedKafka remote = polled(ManagedKafka.getDummyInstance(1), "a");
+        ManagedKafka local = local(remote, "1");
+
+        assertFalse(secretManager.isKnownUnchanged(remote, local));
+        secretManager.markUnchanged(remote, local);
+        assertTrue(secretManager.isKnownUnchanged(remote, local));
+
+        // a later poll of the same content is known unchanged, without making another copy
+        ManagedKafka polled = polled(remote, "a");
+        assertTrue(secretManager.isKnownUnchanged(polled, local));
+        assertSame(secretManager.fingerprint(remote).withoutSecrets, secretManager.getRemoteWithoutSecrets(polled));
+
+        // a new local version must be compared again
+        assertFalse(secretManager.isKnownUnchanged(polled, local(polled, "2")));
+
+        // as must new remote content
+        ManagedKafka changed = polled(new ManagedKafkaBuilder(remote).editSpec().editVersions().withKafka("3.0.0").endVersions().endSpec().build(), "b");
+        assertFalse(secretManager.isKnownUnchanged(changed, local));
+    }
+
+    @Test
+    public void testRetainFingerprints() {
+        ManagedKafka retained = polled(ManagedKafka.getDummyInstance(1), "a");
+        ManagedKafka removed = polled(ManagedKafka.getDummyInstance(2), "b");
+        SecretManager.RemoteFingerprint retainedFingerprint = secretManager.fingerprint(retained);
+        SecretManager.RemoteFingerprint removedFingerprint = secretManager.fingerprint(removed);
+        secretManager.markUnchanged(removed, local(removed, "1"));
+
+        secretManager.retainFingerprints(Set.of(ControlPlane.managedKafkaKey(retained)));
+
+        assertSame(retainedFingerprint, secretManager.fingerprint(retained));
+        SecretManager.RemoteFingerprint recreated = secretManager.fingerprint(removed);
+        assertNotSame(removedFingerprint, recreated);
+        assertNull(recreated.unchangedLocalVersion);
+    }
+
+}
@@ -65,6 +65,18 @@ public class UpdateTest {
         controlPlane.sendResync();
         ArgumentCaptor<Map<String, ManagedKafkaStatus>> statusCaptor = getUpdates();
         assertEquals("Installed", statusCaptor.getValue().get(PollerTest.ID).getConditions().get(0).getStatus());
+
+        // nothing has changed since the last resync
+        Mockito.clearInvocations(controlPlaneRestClient);
+        controlPlane.sendResync();
+        Mockito.verify(controlPlaneRestClient, Mockito.never()).updateKafkaClustersStatus(Mockito.any(), Mockito.any());
+
+        // only the changed status should be sent
+        managedKafka = managedKafkaClient.getByName(managedKafka.getMetadata().getNamespace(), managedKafka.getMetadata().getName());
+        managedKafka.getStatus().getConditions().get(0).setStatus("Ready");
+        managedKafkaClient.replaceStatus(managedKafka);
+        controlPlane.sendResync();
+        assertEquals("Ready", getUpdates().getValue().get(PollerTest.ID).getConditions().get(0).getStatus());
     }
 
     private ArgumentCaptor<Map<String, ManagedKafkaStatus>> getUpdates() {
@@ -0,0 +1,101 @@
+package org.bf2.sync;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkQueueTest {
+
+    @Test
+    public void testSupersede() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor deferred = tasks::add;
+        List<String> processed = new ArrayList<>();
+
+        WorkQueue<String> queue = new WorkQueue<>("test", deferred, 1, Duration.ofSeconds(1), Duration.ofSeconds(10),
+                new SimpleMeterRegistry(), processed::add);
+
+        queue.add("a");
+        queue.add("b");
+        queue.add("a");
+        queue.add("b");
+
+        assertEquals(2, queue.size());
+        // only a single worker should be started
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+
+        assertEquals(List.of("a", "b"), processed);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testReprocessWhenAddedDuringProcessing() {
+        List<String> processed = new ArrayList<>();
+        WorkQueue<String>[] holder = new WorkQueue[1];
+
+        holder[0] = new WorkQueue<>("test", MoreExecutors.directExecutor(), 1, Duration.ofSeconds(1),
+                Duration.ofSeconds(10), new SimpleMeterRegistry(), key -> {
+                    processed.add(key);
+                    if (processed.size() == 1) {
+                        // simulate a concurrent add of the same key
+                        holder[0].add(key);
+                    }
+                });
+
+        holder[0].add("a");
+
+        assertEquals(List.of("a", "a"), processed);
+    }
+
+    @Test
+    public void testRetryWithBackoff() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        WorkQueue<String> queue = new WorkQueue<>("test", MoreExecutors.directExecutor(), 1, Duration.ofMillis(10),
+                Duration.ofMillis(100), new SimpleMeterRegistry(), key -> {
+                    if (attempts.incrementAndGet() < 3) {
+                        throw new RuntimeException("failed");
+                    }
+                    latch.countDown();
+                });
+
+        queue.add("a");
+        assertEquals(1, attempts.get());
+
+        // additions while backing off should be deferred to the retry
+        queue.add("a");
+        assertEquals(1, attempts.get());
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        queue.shutdown();
+    }
+
+    @Test
+    public void testBackoffCalculation() {
+        WorkQueue<String> queue = new WorkQueue<>("test", MoreExecutors.directExecutor(), 1, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), new SimpleMeterRegistry(), key -> {});
+
+        assertEquals(1000, queue.nextBackoff("a"));
+        assertEquals(2000, queue.nextBackoff("a"));
+        assertEquals(4000, queue.nextBackoff("a"));
+        assertEquals(5000, queue.nextBackoff("a"));
+        assertEquals(1000, queue.nextBackoff("b"));
+        queue.shutdown();
+    }
+
+}
@@ -6,7 +6,9 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ControlPlaneTest {
@@ -32,4 +34,15 @@ public class ControlPlaneTest {
         assertTrue(ControlPlane.statusChanged(status, newStatus));
     }
 
+    @Test public void testManagedKafkaStatusHash() {
+        ManagedKafkaStatus status = new ManagedKafkaStatusBuilder().withUpdatedTimestamp("2020-01-01")
+                .addNewCondition().withType("Ready").withStatus("True").endCondition().build();
+        ManagedKafkaStatus copy = new ManagedKafkaStatusBuilder(status).build();
+
+        assertEquals(ControlPlane.statusHash(status), ControlPlane.statusHash(copy));
+
+        copy.getConditions().get(0).setStatus("False");
+        assertNotEquals(ControlPlane.statusHash(status), ControlPlane.statusHash(copy));
+    }
+
 }
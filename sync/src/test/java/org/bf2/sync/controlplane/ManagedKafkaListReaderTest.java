@@ -0,0 +1,121 @@
+package org.bf2.sync.controlplane;
+
+import io.fabric8.kubernetes.client.utils.Serialization;
+import org.bf2.operator.resources.v1alpha1.ManagedKafka;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaList;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ManagedKafkaListReaderTest {
+
+    private static Logger log = Logger.getLogger(ManagedKafkaListReaderTest.class);
+
+    @Test
+    public void testRead() throws IOException {
+        ManagedKafkaList list = new ManagedKafkaList(List.of(ManagedKafka.getDummyInstance(1), ManagedKafka.getDummyInstance(2)));
+        List<ManagedKafka> result = new ArrayList<>();
+
+        int count = ManagedKafkaListReader.read(new ByteArrayInputStream(Serialization.jsonMapper().writeValueAsBytes(list)),
+                (mk, digest) -> result.add(mk));
+
+        assertEquals(2, count);
+        assertEquals(list.getItems(), result);
+    }
+
+    @Test
+    public void testReadUnexpectedFields() throws IOException {
+        String json = "{\"metadata\":{\"continue\":\"x\"},\"other\":[{\"items\":[]}],\"items\":[null,"
+                + Serialization.asJson(ManagedKafka.getDummyInstance(1)) + "],\"kind\":\"ManagedKafkaList\"}";
+
+        assertEquals(1, ManagedKafkaListReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), (mk, digest) -> {}));
+        assertEquals(0, ManagedKafkaListReader.read(new ByteArrayInputStream("{\"items\":null}".getBytes(StandardCharsets.UTF_8)), (mk, digest) -> {}));
+    }
+
+    @Test
+    public void testDigest() throws Exception {
+        ManagedKafka a = ManagedKafka.getDummyInstance(1);
+        ManagedKafka b = ManagedKafka.getDummyInstance(2);
+        String json = "{\"metadata\":{\"continue\":\"x\"},\"items\":[" + Serialization.asJson(a) + ",null,"
+                + Serialization.asJson(b) + "," + Serialization.asJson(a) + "]}";
+        List<String> digests = new ArrayList<>();
+
+        ManagedKafkaListReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), (mk, digest) -> digests.add(digest));
+
+        // the digest is of exactly the json of the item
+        MessageDigest expected = MessageDigest.getInstance("SHA-256");
+        expected.update(Serialization.asJson(a).getBytes(StandardCharsets.UTF_8));
+        assertEquals(String.format("%064x", new BigInteger(1, expected.digest())), digests.get(0));
+        assertNotEquals(digests.get(0), digests.get(1));
+        assertEquals(digests.get(0), digests.get(2));
+    }
+
+    /**
+     * Streams a gzip encoded list of thousands of instances from the {@link MockControlPlane} and
+     * checks that each instance is handed off as soon as it has been read, rather than after the whole
+     * document has been buffered, so that the heap used while reading is bounded by a single instance
+     */
+    @Test
+    public void testStreaming() throws Exception {
+        int instances = 5000;
+        MockControlPlane mockControlPlane = new MockControlPlane();
+        mockControlPlane.log = Logger.getLogger(MockControlPlane.class);
+        for (int i = 0; i < instances; i++) {
+            mockControlPlane.createCluster(ManagedKafka.getDummyInstance(i));
+        }
+
+        Response response = mockControlPlane.getKafkaClusters("007", null);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            Serialization.jsonMapper().writeValue(out, response.getEntity());
+        }
+
+        AtomicLong bytesRead = new AtomicLong();
+        InputStream in = new FilterInputStream(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    bytesRead.addAndGet(read);
+                }
+                return read;
+            }
+        };
+
+        long[] readAtInstance = new long[instances];
+        int[] index = new int[1];
+        int count = ManagedKafkaListReader.read(in, (mk, digest) -> readAtInstance[index[0]++] = bytesRead.get());
+        long documentSize = bytesRead.get();
+
+        log.infof("Read %s instances from a %s byte document, %s bytes were read before the first was returned", count,
+                documentSize, readAtInstance[0]);
+        assertEquals(instances, count);
+        // allow for the parser buffer, but nowhere near the whole document
+        for (int i = 0; i < instances; i++) {
+            long expectedPosition = documentSize * (i + 1) / instances;
+            assertTrue(readAtInstance[i] - expectedPosition < documentSize / 20,
+                    "instance " + i + " was returned after reading " + readAtInstance[i] + " bytes");
+        }
+    }
+
+}
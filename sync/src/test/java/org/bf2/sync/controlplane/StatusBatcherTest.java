@@ -0,0 +1,157 @@
+package org.bf2.sync.controlplane;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaStatus;
+import org.bf2.operator.resources.v1alpha1.ManagedKafkaStatusBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatusBatcherTest {
+
+    static ManagedKafkaStatus status(String timestamp) {
+        return new ManagedKafkaStatusBuilder().withUpdatedTimestamp(timestamp).build();
+    }
+
+    @Test
+    public void testCoalescing() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<Map<String, ManagedKafkaStatus>> sent = new ArrayList<>();
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        StatusBatcher batcher = new StatusBatcher(Duration.ofHours(1), 1, tasks::add, registry, sent::add);
+
+        batcher.add("a", () -> status("1"));
+        batcher.add("b", () -> status("1"));
+        batcher.add("a", () -> status("2"));
+        batcher.requestFlush();
+        batcher.requestFlush();
+
+        // nothing is sent until the window elapses
+        batcher.flush();
+        assertEquals(1, tasks.size());
+
+        // the in flight limit has been reached
+        batcher.add("c", () -> status("1"));
+        batcher.flush();
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+        assertEquals(1, sent.size());
+        assertEquals(2, sent.get(0).size());
+        assertEquals("2", sent.get(0).get("a").getUpdatedTimestamp());
+        assertEquals(2, registry.get("sync.status.batch.size").summary().totalAmount());
+
+        // the remainder is sent on shutdown
+        batcher.shutdown(Duration.ZERO);
+        assertEquals(2, sent.size());
+        assertEquals(Map.of("c", status("1")), sent.get(1));
+    }
+
+    @Test
+    public void testRetry() {
+        List<Map<String, ManagedKafkaStatus>> sent = new ArrayList<>();
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        StatusBatcher batcher = new StatusBatcher(Duration.ZERO, 1, Runnable::run, registry, status -> {
+            sent.add(status);
+            throw new RuntimeException("failed");
+        });
+
+        batcher.add("a", () -> status("1"));
+        batcher.requestFlush();
+        assertEquals(1, sent.size());
+        assertEquals(1, registry.get("sync.status.batches").tag("result", "retried").counter().count());
+
+        // the retry fails as well, and is dropped
+        batcher.requestFlush();
+        assertEquals(2, sent.size());
+        assertEquals(1, registry.get("sync.status.batches").tag("result", "dropped").counter().count());
+
+        batcher.requestFlush();
+        assertEquals(2, sent.size());
+        assertTrue(sent.stream().allMatch(m -> m.containsKey("a")));
+    }
+
+    @Test
+    public void testRejected() {
+        List<Map<String, ManagedKafkaStatus>> sent = new ArrayList<>();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        AtomicInteger attempts = new AtomicInteger();
+
+        StatusBatcher batcher = new StatusBatcher(Duration.ofHours(1), 1, task -> {
+            attempts.incrementAndGet();
+            throw new RejectedExecutionException();
+        }, registry, sent::add);
+
+        batcher.add("a", () -> status("1"));
+        batcher.flush();
+        // the permit was released, so the next flush is not deferred
+        batcher.flush();
+        assertEquals(2, attempts.get());
+        assertTrue(sent.isEmpty());
+
+        // and the batch was restored rather than lost
+        batcher.shutdown(Duration.ZERO);
+        assertEquals(List.of(Map.of("a", status("1"))), sent);
+    }
+
+    @Test
+    public void testShutdownWithBatchInFlight() throws Exception {
+        List<Map<String, ManagedKafkaStatus>> sent = new CopyOnWriteArrayList<>();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        StatusBatcher batcher = new StatusBatcher(Duration.ofHours(1), 1, executor, registry, status -> {
+            sent.add(status);
+            if (sent.size() == 1) {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new RuntimeException("failed");
+            }
+        });
+
+        try {
+            batcher.add("a", () -> status("1"));
+            batcher.flush();
+            assertTrue(sending.await(10, TimeUnit.SECONDS));
+            batcher.add("b", () -> status("1"));
+
+            Thread shutdown = new Thread(() -> batcher.shutdown(Duration.ofSeconds(10)));
+            shutdown.start();
+            while (shutdown.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(10);
+            }
+
+            // the batch in flight fails during the shutdown, and is sent again with what is pending
+            release.countDown();
+            shutdown.join(10000);
+            assertFalse(shutdown.isAlive());
+            assertEquals(List.of(Map.of("a", status("1")), Map.of("a", status("1"), "b", status("1"))), sent);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}